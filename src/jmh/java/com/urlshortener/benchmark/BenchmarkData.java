@@ -0,0 +1,160 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.Config;
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.FileStorageService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Синтетический набор ссылок для бенчмарков
+ * Создает временную директорию с config.yaml и файлом user-links.json заданного размера
+ * Каждая сотая ссылка истекла, еще каждая сотая исчерпала лимит переходов, остальные безлимитные
+ */
+public class BenchmarkData {
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int CODE_LENGTH = 6;
+
+    private final Path directory;
+    private final int linkCount;
+    private final int userCount;
+
+    private final List<String> activeCodes = new ArrayList<>();
+    private final List<String> expiredCodes = new ArrayList<>();
+    private final List<String> exhaustedCodes = new ArrayList<>();
+
+    public BenchmarkData(int linkCount, int userCount) {
+        this(linkCount, userCount, "");
+    }
+
+    // extraConfig - дополнительные секции config.yaml
+    public BenchmarkData(int linkCount, int userCount, String extraConfig) {
+        this(linkCount, userCount, "json", extraConfig);
+    }
+
+    // storageFormat - формат хранилища (json или binary)
+    public BenchmarkData(int linkCount, int userCount, String storageFormat, String extraConfig) {
+        this.linkCount = linkCount;
+        this.userCount = userCount;
+        try {
+            this.directory = Files.createTempDirectory("url-shortener-bench");
+            Path configPath = directory.resolve("config.yaml");
+            Files.writeString(configPath, ""
+                    + "storage:\n"
+                    + "  directory: \"" + directory.resolve("storage").toString().replace("\\", "/") + "\"\n"
+                    + "  userLinksFile: \"user-links.json\"\n"
+                    + "  activeUsersFile: \"active_users.txt\"\n"
+                    + "  writeAheadLog: true\n"
+                    + "  logFile: \"user-links.log\"\n"
+                    + "  format: \"" + storageFormat + "\"\n"
+                    + "compaction:\n"
+                    + "  enabled: false\n"
+                    + "urlShortener:\n"
+                    + "  baseUrl: \"clck.ru/\"\n"
+                    + "  defaultTtlHours: 24\n"
+                    + "  codeLength: " + CODE_LENGTH + "\n"
+                    + "  alphabet: \"" + ALPHABET + "\"\n"
+                    + "ttlService:\n"
+                    + "  cleanupIntervalMinutes: 60\n"
+                    + extraConfig);
+            Config.setConfigPath(configPath.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Строит набор ссылок в памяти: nickname -> Map<URL, ShortLink>
+    public Map<String, Map<String, ShortLink>> buildUserLinks() {
+        activeCodes.clear();
+        expiredCodes.clear();
+        exhaustedCodes.clear();
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Map<String, ShortLink>> userLinks = new ConcurrentHashMap<>();
+        for (int i = 0; i < linkCount; i++) {
+            String nickname = nickname(i % userCount);
+            String url = "https://example.com/page/" + i;
+            String code = code(i);
+
+            ShortLink link;
+            if (i % 100 == 1) {
+                link = new ShortLink(code, url, nickname, null, now.minusHours(1));
+                expiredCodes.add(code);
+            } else if (i % 100 == 2) {
+                link = new ShortLink(code, url, nickname, 1, now.plusDays(365));
+                link.setClickCount(1);
+                exhaustedCodes.add(code);
+            } else {
+                link = new ShortLink(code, url, nickname, null, now.plusDays(365));
+                activeCodes.add(code);
+            }
+            userLinks.computeIfAbsent(nickname, k -> new HashMap<>()).put(url, link);
+        }
+        return userLinks;
+    }
+
+    // Перезаписывает хранилище набором ссылок и удаляет журнал изменений
+    public void writeStorage() {
+        try {
+            Files.createDirectories(directory.resolve("storage"));
+            Files.deleteIfExists(directory.resolve("storage").resolve("user-links.log"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        new FileStorageService().saveUserLinks(buildUserLinks());
+    }
+
+    // Удаляет временную директорию
+    public void delete() {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String nickname(int user) {
+        return "user" + user;
+    }
+
+    // Короткий код, однозначно соответствующий номеру ссылки
+    public static String code(long id) {
+        char[] chars = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (id % ALPHABET.length()));
+            id /= ALPHABET.length();
+        }
+        return new String(chars);
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public List<String> getActiveCodes() {
+        return activeCodes;
+    }
+
+    public List<String> getExpiredCodes() {
+        return expiredCodes;
+    }
+
+    public List<String> getExhaustedCodes() {
+        return exhaustedCodes;
+    }
+}
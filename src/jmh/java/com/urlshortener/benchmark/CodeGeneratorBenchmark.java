@@ -0,0 +1,71 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.CodeGenerator;
+import com.urlshortener.service.RandomCodeGenerator;
+import com.urlshortener.service.SequenceCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность генераторов коротких кодов (кодов в секунду)
+ * Занятость проверяется по индексу из linkCount уже выданных кодов
+ * Варианты *Parallel запускаются во всех доступных потоках: результат, деленный на число ядер,
+ * дает количество кодов в секунду на ядро
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeGeneratorBenchmark {
+    @Param({"1000", "1000000"})
+    private int linkCount;
+
+    private BenchmarkData data;
+    private CodeGenerator randomGenerator;
+    private CodeGenerator sequenceGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, 1);
+        Map<String, Boolean> index = new ConcurrentHashMap<>();
+        for (int i = 0; i < linkCount; i++) {
+            index.put(BenchmarkData.code(i), Boolean.TRUE);
+        }
+        randomGenerator = new RandomCodeGenerator(index::containsKey);
+        sequenceGenerator = new SequenceCodeGenerator(index::containsKey);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.delete();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String random() {
+        return randomGenerator.generate("user0", "https://example.com/");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String randomParallel() {
+        return randomGenerator.generate("user0", "https://example.com/");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String sequence() {
+        return sequenceGenerator.generate("user0", "https://example.com/");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String sequenceParallel() {
+        return sequenceGenerator.generate("user0", "https://example.com/");
+    }
+}
@@ -0,0 +1,142 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочная проверка UrlShortenerService из нескольких потоков: смесь переходов (70%),
+ * созданий (20%) и удалений своих ссылок (10%) по общим никнеймам
+ * Пропускная способность при 1, 4 и всех доступных потоках показывает масштабирование
+ * После прогона проверяется, что ни одно создание, удаление или клик не потерян - и в памяти,
+ * и после перезагрузки из хранилища; при расхождении бенчмарк завершается ошибкой
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ConcurrentServiceBenchmark {
+    private static final int USERS = 100;
+
+    @Param({"100000"})
+    private int linkCount;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+    private List<String> clickCodes;
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+    // Созданные и удаленные в прогоне ссылки: код -> никнейм
+    private final Map<String, String> created = new ConcurrentHashMap<>();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final LongAdder clicks = new LongAdder();
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int threadId;
+        int next;
+        final List<String> ownCodes = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp(ConcurrentServiceBenchmark benchmark) {
+            threadId = benchmark.threadIds.getAndIncrement();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, USERS);
+        data.writeStorage();
+        service = new UrlShortenerService();
+        clickCodes = data.getActiveCodes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            verify(service, "в памяти");
+            service.shutdown();
+            verify(new UrlShortenerService(), "после перезагрузки");
+        } finally {
+            data.delete();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object mixed1(Worker worker) {
+        return step(worker);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object mixed4(Worker worker) {
+        return step(worker);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object mixedMax(Worker worker) {
+        return step(worker);
+    }
+
+    private Object step(Worker worker) {
+        int op = worker.next++ % 10;
+        if (op < 2) {
+            String nickname = BenchmarkData.nickname(worker.next % USERS);
+            String shortUrl = service.createShortLink(
+                    "https://example.com/t" + worker.threadId + "/" + worker.next, nickname, null);
+            String code = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+            created.put(code, nickname);
+            worker.ownCodes.add(code);
+            return code;
+        }
+        if (op == 2 && !worker.ownCodes.isEmpty()) {
+            String code = worker.ownCodes.remove(worker.ownCodes.size() - 1);
+            if (!service.deleteLink(code, created.get(code))) {
+                throw new IllegalStateException("Не удалось удалить ссылку " + code);
+            }
+            deleted.add(code);
+            return code;
+        }
+        String url = service.getOriginalUrl(clickCodes.get(ThreadLocalRandom.current().nextInt(clickCodes.size())));
+        if (url != null) {
+            clicks.increment();
+        }
+        return url;
+    }
+
+    // Сверяет состояние сервиса с выполненными операциями
+    private void verify(UrlShortenerService checked, String stage) {
+        for (Map.Entry<String, String> entry : created.entrySet()) {
+            ShortLink link = checked.getLinkInfo(entry.getKey());
+            boolean expected = !deleted.contains(entry.getKey());
+            if ((link != null) != expected || (link != null && !link.getUserNickname().equals(entry.getValue()))) {
+                throw new IllegalStateException("Потеряно " + (expected ? "создание" : "удаление") + " ссылки "
+                        + entry.getKey() + " " + stage);
+            }
+        }
+
+        long clickCount = 0;
+        for (String code : clickCodes) {
+            clickCount += checked.getLinkInfo(code).getClickCount();
+        }
+        if (clickCount != clicks.sum()) {
+            throw new IllegalStateException("Кликов " + stage + ": " + clickCount + ", выполнено: " + clicks.sum());
+        }
+        System.out.printf("%nпроверено %s: ссылок создано %d, удалено %d, кликов %d%n",
+                stage, created.size(), deleted.size(), clickCount);
+    }
+}
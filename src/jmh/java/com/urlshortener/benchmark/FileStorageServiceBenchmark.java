@@ -0,0 +1,55 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.FileStorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки полного сохранения и загрузки хранилища FileStorageService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FileStorageServiceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int linkCount;
+
+    @Param({"10", "1000"})
+    private int userCount;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private BenchmarkData data;
+    private FileStorageService storageService;
+    private Map<String, Map<String, ShortLink>> userLinks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, userCount, format, "");
+        data.writeStorage();
+        storageService = new FileStorageService();
+        userLinks = data.buildUserLinks();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.delete();
+    }
+
+    @Benchmark
+    public void saveUserLinks() {
+        storageService.saveUserLinks(userLinks);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, ShortLink>> loadUserLinks() {
+        return storageService.loadUserLinks();
+    }
+}
@@ -0,0 +1,91 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Редиректы с распределением Ципфа (немного популярных ссылок получают большую часть переходов)
+ * с кэшем горячих ссылок и без него; URL хранятся в UrlArena, поэтому промах кэша - это сборка строки из арены
+ * Доля попаданий и число вытеснений печатаются после прогона
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:MaxDirectMemorySize=1g"})
+public class HotLinkCacheBenchmark {
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"1000000"})
+    private int linkCount;
+
+    @Param({"false", "true"})
+    private boolean hotCache;
+
+    // Показатель распределения Ципфа
+    @Param({"1.0"})
+    private double skew;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+    private String[] samples;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, 1000, ""
+                + "clickBuffer:\n"
+                + "  enabled: true\n"
+                + "  flushIntervalMillis: 3600000\n"
+                + "  flushThreshold: 100000000\n"
+                + "urlArena:\n"
+                + "  enabled: true\n"
+                + "hotCache:\n"
+                + "  enabled: " + hotCache + "\n"
+                + "  maxWeightBytes: 4194304\n");
+        data.writeStorage();
+        service = new UrlShortenerService();
+        samples = zipfSamples(data.getActiveCodes(), skew);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nhit ratio: %.3f, evictions: %d, cached: %d%n",
+                service.getHotCacheHitRatio(), service.getHotCacheEvictions(), service.getHotCacheSize());
+        data.delete();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = new Random().nextInt(SAMPLES);
+    }
+
+    @Benchmark
+    public String redirect(Cursor cursor) {
+        return service.getOriginalUrl(samples[cursor.next++ & (SAMPLES - 1)]);
+    }
+
+    // Последовательность кодов, где ранг k выбирается с вероятностью ~ 1/k^skew
+    private static String[] zipfSamples(List<String> codes, double skew) {
+        double[] cumulative = new double[codes.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+
+        Random random = new Random(42);
+        String[] samples = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            rank = rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1);
+            samples[i] = codes.get(rank);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,35 @@
+package com.urlshortener.benchmark;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Адаптер Gson для сериализации/десериализации LongAdder в виде числа
+ * Нужен только для рефлексивного Gson прежнего формата хранилища (см. SnapshotFormatBenchmark)
+ */
+public class LongAdderAdapter extends TypeAdapter<LongAdder> {
+    @Override
+    public void write(JsonWriter out, LongAdder value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.sum());
+        }
+    }
+
+    @Override
+    public LongAdder read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        LongAdder adder = new LongAdder();
+        adder.add(in.nextLong());
+        return adder;
+    }
+}
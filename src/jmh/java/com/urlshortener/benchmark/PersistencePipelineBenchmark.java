@@ -0,0 +1,78 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Создание ссылок из нескольких потоков через конвейер сохранения с групповой фиксацией
+ * Сравнивает политики fsync (none, interval, commit) для журнала и бинарного хранилища;
+ * после прогона печатает распределение размера групп и задержки сохранения
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PersistencePipelineBenchmark {
+    private static final int USERS = 100;
+
+    @Param({"none", "interval", "commit"})
+    private String fsync;
+
+    @Param({"json", "binary"})
+    private String storageFormat;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int threadId;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(PersistencePipelineBenchmark benchmark) {
+            threadId = benchmark.threadIds.getAndIncrement();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(10000, USERS, storageFormat, ""
+                + "persistence:\n"
+                + "  fsync: \"" + fsync + "\"\n"
+                + "  fsyncIntervalMillis: 100\n");
+        data.writeStorage();
+        service = new UrlShortenerService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            service.whenPersisted().join();
+            System.out.printf("%nгрупп %d, записей в группе: среднее %.1f, p50 %d, p99 %d; "
+                            + "задержка сохранения, мкс: p50 %d, p99 %d, max %d; fsync p50 %d мкс%n",
+                    service.getCommitCount(), service.getMeanCommitBatchSize(),
+                    service.getCommitBatchSizePercentile(50), service.getCommitBatchSizePercentile(99),
+                    service.getCommitLatencyMicrosPercentile(50), service.getCommitLatencyMicrosPercentile(99),
+                    service.getMaxCommitLatencyMicros(), service.getFsyncMicrosPercentile(50));
+            service.shutdown();
+        } finally {
+            data.delete();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String create(Worker worker) {
+        worker.next++;
+        return service.createShortLink("https://example.com/p" + worker.threadId + "/" + worker.next,
+                BenchmarkData.nickname(worker.next % USERS), null);
+    }
+}
@@ -0,0 +1,87 @@
+package com.urlshortener.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.LocalDateTimeAdapter;
+import com.urlshortener.service.ShortLinkAdapter;
+import com.urlshortener.service.UserLinksAdapter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Чтение и запись снимка хранилища в прежнем и новом формате
+ * legacy - рефлексивный Gson, время строкой ISO, форматирование с отступами
+ * streaming - потоковые ShortLinkAdapter/UserLinksAdapter, время в миллисекундах, компактный JSON
+ * readLegacyStreaming - новый адаптер на файле прежнего формата (первая загрузка после обновления)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotFormatBenchmark {
+    @Param({"100000", "1000000"})
+    private int linkCount;
+
+    private BenchmarkData data;
+    private Gson legacyGson;
+    private Gson streamingGson;
+    private Map<String, Map<String, ShortLink>> userLinks;
+    private String legacyJson;
+    private String streamingJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, 1000);
+        legacyGson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(LongAdder.class, new LongAdderAdapter())
+                .setPrettyPrinting()
+                .create();
+        ShortLinkAdapter linkAdapter = new ShortLinkAdapter();
+        streamingGson = new GsonBuilder()
+                .registerTypeAdapter(ShortLink.class, linkAdapter)
+                .registerTypeAdapter(UserLinksAdapter.TYPE, new UserLinksAdapter(linkAdapter))
+                .create();
+
+        userLinks = data.buildUserLinks();
+        legacyJson = legacyGson.toJson(userLinks, UserLinksAdapter.TYPE);
+        streamingJson = streamingGson.toJson(userLinks, UserLinksAdapter.TYPE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.delete();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, ShortLink>> readLegacyReflective() {
+        return legacyGson.fromJson(legacyJson, UserLinksAdapter.TYPE);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, ShortLink>> readLegacyStreaming() {
+        return streamingGson.fromJson(legacyJson, UserLinksAdapter.TYPE);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, ShortLink>> readStreaming() {
+        return streamingGson.fromJson(streamingJson, UserLinksAdapter.TYPE);
+    }
+
+    @Benchmark
+    public String writeLegacyReflective() {
+        return legacyGson.toJson(userLinks, UserLinksAdapter.TYPE);
+    }
+
+    @Benchmark
+    public String writeStreaming() {
+        return streamingGson.toJson(userLinks, UserLinksAdapter.TYPE);
+    }
+}
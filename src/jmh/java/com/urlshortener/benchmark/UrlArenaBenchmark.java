@@ -0,0 +1,68 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Паузы сборщика мусора с URL в куче и в UrlArena вне кучи
+ * fullGc - длительность полной сборки при загруженном наборе ссылок (чем больше живых объектов, тем дольше)
+ * redirect - стоимость создания строки URL из арены на пути редиректа
+ * Для объема кучи и числа сборок запускать с профайлером: make bench BENCH_ARGS="UrlArenaBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+public class UrlArenaBenchmark {
+    @Param({"1000000"})
+    private int linkCount;
+
+    @Param({"false", "true"})
+    private boolean urlArena;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+    private List<String> codes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, 1000, ""
+                + "clickBuffer:\n"
+                + "  enabled: true\n"
+                + "  flushIntervalMillis: 3600000\n"
+                + "  flushThreshold: 100000000\n"
+                + "bloomFilter:\n"
+                + "  enabled: false\n"
+                + "urlArena:\n"
+                + "  enabled: " + urlArena + "\n");
+        data.writeStorage();
+        service = new UrlShortenerService();
+        codes = data.getActiveCodes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.delete();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public String redirect() {
+        String code = codes.get(next++ % codes.size());
+        return service.getOriginalUrl(code);
+    }
+}
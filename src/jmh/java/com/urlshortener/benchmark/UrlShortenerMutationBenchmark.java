@@ -0,0 +1,100 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.model.CreateLinkRequest;
+import com.urlshortener.model.CreateLinkResult;
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки изменяющих операций UrlShortenerService (создание и удаление ссылок)
+ * Набор данных восстанавливается перед каждой итерацией, поэтому используется режим SingleShotTime
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UrlShortenerMutationBenchmark {
+    // Количество удалений за одну итерацию deleteLink
+    private static final int DELETE_BATCH = 1000;
+    // Количество создаваемых ссылок за одну итерацию createShortLink/createShortLinks
+    private static final int CREATE_BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int linkCount;
+
+    @Param({"10", "1000"})
+    private int userCount;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        data = new BenchmarkData(linkCount, userCount);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        if (service != null) {
+            service.shutdown();
+        }
+        data.writeStorage();
+        service = new UrlShortenerService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+        data.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELETE_BATCH)
+    public int deleteLink() {
+        List<String> codes = data.getActiveCodes();
+        int deleted = 0;
+        for (int i = 0; i < DELETE_BATCH && i < codes.size(); i++) {
+            String code = codes.get(i);
+            String nickname = service.getLinkInfo(code).getUserNickname();
+            if (service.deleteLink(code, nickname)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Ссылки по одной: каждая сохраняется отдельной записью
+    @Benchmark
+    @OperationsPerInvocation(CREATE_BATCH)
+    public int createShortLink() {
+        int created = 0;
+        for (int i = 0; i < CREATE_BATCH; i++) {
+            service.createShortLink("https://example.com/new/" + i, BenchmarkData.nickname(i % userCount), null);
+            created++;
+        }
+        return created;
+    }
+
+    // Те же ссылки одной пачкой
+    @Benchmark
+    @OperationsPerInvocation(CREATE_BATCH)
+    public List<CreateLinkResult> createShortLinks() {
+        List<CreateLinkRequest> requests = new ArrayList<>(CREATE_BATCH);
+        for (int i = 0; i < CREATE_BATCH; i++) {
+            requests.add(new CreateLinkRequest("https://example.com/new/" + i, BenchmarkData.nickname(i % userCount),
+                    null));
+        }
+        return service.createShortLinks(requests);
+    }
+
+    @Benchmark
+    public void removeExpiredLinks() {
+        service.removeExpiredLinks();
+    }
+}
@@ -0,0 +1,80 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.UrlShortenerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бенчмарки основных операций UrlShortenerService на наборах разного размера
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UrlShortenerServiceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int linkCount;
+
+    @Param({"10", "1000"})
+    private int userCount;
+
+    private BenchmarkData data;
+    private UrlShortenerService service;
+    private final AtomicLong createCounter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(linkCount, userCount);
+        data.writeStorage();
+        service = new UrlShortenerService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+        data.delete();
+    }
+
+    @Benchmark
+    public String createShortLink() {
+        long id = createCounter.incrementAndGet();
+        return service.createShortLink("https://example.com/new/" + id,
+                BenchmarkData.nickname((int) (id % userCount)), null);
+    }
+
+    @Benchmark
+    public String getOriginalUrlHit() {
+        return service.getOriginalUrl(randomOf(data.getActiveCodes()));
+    }
+
+    @Benchmark
+    public String getOriginalUrlMiss() {
+        return service.getOriginalUrl("zz" + ThreadLocalRandom.current().nextInt(10000));
+    }
+
+    @Benchmark
+    public String getOriginalUrlExpired() {
+        return service.getOriginalUrl(randomOf(data.getExpiredCodes()));
+    }
+
+    @Benchmark
+    public String getOriginalUrlLimitExceeded() {
+        return service.getOriginalUrl(randomOf(data.getExhaustedCodes()));
+    }
+
+    @Benchmark
+    public List<ShortLink> getUserLinks() {
+        return service.getUserLinks(BenchmarkData.nickname(ThreadLocalRandom.current().nextInt(userCount)));
+    }
+
+    private static String randomOf(List<String> codes) {
+        return codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+    }
+}
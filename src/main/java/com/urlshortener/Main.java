@@ -2,12 +2,16 @@ package com.urlshortener;
 
 import com.urlshortener.config.Config;
 import com.urlshortener.model.ShortLink;
+import com.urlshortener.server.RedirectServer;
 import com.urlshortener.service.ActiveUsersService;
+import com.urlshortener.service.LinkTransferService;
+import com.urlshortener.service.LogCompactionService;
 import com.urlshortener.service.TTLService;
 import com.urlshortener.service.UrlShortenerService;
 
 import java.awt.Desktop;
 import java.net.URI;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Scanner;
@@ -16,13 +20,31 @@ public class Main {
     private static UrlShortenerService urlShortenerService;
     private static TTLService expirationService;
     private static ActiveUsersService activeUsersService;
+    private static LogCompactionService compactionService;
     private static String currentUserNickname = null;
     private static final Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
         // Обрабатываем аргументы командной строки для пути к конфигу
         String configPath = null;
+        boolean serveMode = false;
+        String importPath = null;
+        String exportPath = null;
         for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--serve")) {
+                serveMode = true;
+            }
+            if (args[i].equals("--import") || args[i].equals("--export")) {
+                if (i + 1 >= args.length) {
+                    System.err.println("Ошибка: путь к файлу для " + args[i] + " не указан");
+                    System.exit(1);
+                }
+                if (args[i].equals("--import")) {
+                    importPath = args[i + 1];
+                } else {
+                    exportPath = args[i + 1];
+                }
+            }
             if (args[i].equals("--config") || args[i].equals("-c")) {
                 if (i + 1 < args.length) {
                     configPath = args[i + 1];
@@ -41,8 +63,19 @@ public class Main {
         // Инициализируем сервисы после загрузки конфига
         urlShortenerService = new UrlShortenerService();
         expirationService = new TTLService(urlShortenerService);
+        compactionService = new LogCompactionService(urlShortenerService);
         activeUsersService = new ActiveUsersService();
 
+        if (importPath != null || exportPath != null) {
+            runTransfer(importPath, exportPath);
+            return;
+        }
+
+        if (serveMode) {
+            runServer();
+            return;
+        }
+
         System.out.print("Введите ваш никнейм: ");
         currentUserNickname = scanner.nextLine().trim();
 
@@ -54,8 +87,9 @@ public class Main {
         // Увеличиваем счетчик активных пользователей
         activeUsersService.incrementActiveUsers();
 
-        // Добавляем shutdown hook для уменьшения счетчика при завершении
+        // Добавляем shutdown hook для уменьшения счетчика и сохранения накопленных кликов при завершении
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            urlShortenerService.shutdown();
             activeUsersService.decrementActiveUsers();
         }));
 
@@ -64,6 +98,7 @@ public class Main {
 
         // Запускаем сервис автоматической очистки
         expirationService.start();
+        compactionService.start();
 
         boolean running = true;
         while (running) {
@@ -102,12 +137,64 @@ public class Main {
         }
 
         expirationService.stop();
+        compactionService.stop();
+        urlShortenerService.shutdown();
         scanner.close();
 
         // Уменьшаем счетчик активных пользователей
         activeUsersService.decrementActiveUsers();
     }
 
+    // Импорт и/или экспорт ссылок в формате NDJSON без интерактивного меню
+    private static void runTransfer(String importPath, String exportPath) {
+        LinkTransferService transferService = new LinkTransferService(urlShortenerService);
+        try {
+            if (importPath != null) {
+                LinkTransferService.Result result = transferService.importFrom(Paths.get(importPath));
+                System.out.printf("Импорт завершен: прочитано %d, добавлено %d, пропущено (дубликаты) %d, "
+                                + "отклонено %d, %d мс, %d записей/с%n",
+                        result.getProcessed(), result.getImported(), result.getDuplicates(), result.getRejected(),
+                        result.getElapsedMillis(), result.getThroughput());
+            }
+            if (exportPath != null) {
+                LinkTransferService.Result result = transferService.exportTo(Paths.get(exportPath));
+                System.out.printf("Экспорт завершен: %d ссылок, %d мс, %d записей/с%n",
+                        result.getProcessed(), result.getElapsedMillis(), result.getThroughput());
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            urlShortenerService.shutdown();
+            System.exit(1);
+        }
+        urlShortenerService.shutdown();
+    }
+
+    // Режим HTTP-сервера: редиректы и JSON API вместо интерактивного меню
+    private static void runServer() {
+        RedirectServer server = new RedirectServer(urlShortenerService);
+        try {
+            server.start();
+        } catch (Exception e) {
+            System.err.println("Ошибка: не удалось запустить HTTP-сервер: " + e.getMessage());
+            urlShortenerService.shutdown();
+            System.exit(1);
+        }
+
+        expirationService.start();
+        compactionService.start();
+
+        // Останавливаем сервер и сохраняем накопленные клики при завершении
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            expirationService.stop();
+            compactionService.stop();
+            urlShortenerService.shutdown();
+        }));
+
+        System.out.println("HTTP-сервер запущен: http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/");
+    }
+
     private static void printMenu() {
         System.out.println("Выберите действие:");
         System.out.println("1. Создать короткую ссылку");
@@ -0,0 +1,44 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация фильтра Блума по коротким кодам
+ * expectedCodes и falsePositiveRate задают размер фильтра; file хранится в директории хранилища
+ */
+public class BloomFilterConfig {
+    private boolean enabled = true;
+    private int expectedCodes = 1000000;
+    private double falsePositiveRate = 0.01;
+    private String file = "short-codes.bloom";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getExpectedCodes() {
+        return expectedCodes;
+    }
+
+    public void setExpectedCodes(int expectedCodes) {
+        this.expectedCodes = expectedCodes;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
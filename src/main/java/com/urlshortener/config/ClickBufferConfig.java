@@ -0,0 +1,35 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация буферизации счетчиков кликов
+ * flushIntervalMillis - окно долговечности: максимальное время, в течение которого клик может быть не сохранен
+ */
+public class ClickBufferConfig {
+    private boolean enabled = true;
+    private long flushIntervalMillis = 1000;
+    private int flushThreshold = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+}
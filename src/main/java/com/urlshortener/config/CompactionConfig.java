@@ -0,0 +1,34 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация фонового сжатия журнала (снимок состояния + обрезка лога)
+ */
+public class CompactionConfig {
+    private boolean enabled = true;
+    private long intervalMinutes = 10;
+    private long minLogSizeBytes = 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    public void setIntervalMinutes(long intervalMinutes) {
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    public long getMinLogSizeBytes() {
+        return minLogSizeBytes;
+    }
+
+    public void setMinLogSizeBytes(long minLogSizeBytes) {
+        this.minLogSizeBytes = minLogSizeBytes;
+    }
+}
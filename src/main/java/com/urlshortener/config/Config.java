@@ -75,6 +75,124 @@ public class Config {
         return configModel.getStorage().getActiveUsersFile();
     }
 
+    public boolean isWriteAheadLogEnabled() {
+        return configModel.getStorage().isWriteAheadLog();
+    }
+
+    public String getLogFile() {
+        return configModel.getStorage().getLogFile();
+    }
+
+    public int getShardCount() {
+        return configModel.getStorage().getShardCount();
+    }
+
+    public String getIdAllocatorFile() {
+        return configModel.getStorage().getIdAllocatorFile();
+    }
+
+    public String getStorageFormat() {
+        return configModel.getStorage().getFormat();
+    }
+
+    public String getBinaryFile() {
+        return configModel.getStorage().getBinaryFile();
+    }
+
+    public String getBinaryStringsFile() {
+        return configModel.getStorage().getBinaryStringsFile();
+    }
+
+    // Compaction config
+    public boolean isCompactionEnabled() {
+        return configModel.getCompaction().isEnabled();
+    }
+
+    public long getCompactionIntervalMinutes() {
+        return configModel.getCompaction().getIntervalMinutes();
+    }
+
+    public long getCompactionMinLogSizeBytes() {
+        return configModel.getCompaction().getMinLogSizeBytes();
+    }
+
+    // Click buffer config
+    public boolean isClickBufferEnabled() {
+        return configModel.getClickBuffer().isEnabled();
+    }
+
+    public long getClickFlushIntervalMillis() {
+        return configModel.getClickBuffer().getFlushIntervalMillis();
+    }
+
+    public int getClickFlushThreshold() {
+        return configModel.getClickBuffer().getFlushThreshold();
+    }
+
+    public boolean isBloomFilterEnabled() {
+        return configModel.getBloomFilter().isEnabled();
+    }
+
+    public int getBloomFilterExpectedCodes() {
+        return configModel.getBloomFilter().getExpectedCodes();
+    }
+
+    public double getBloomFilterFalsePositiveRate() {
+        return configModel.getBloomFilter().getFalsePositiveRate();
+    }
+
+    public String getBloomFilterFile() {
+        return configModel.getBloomFilter().getFile();
+    }
+
+    public boolean isUrlArenaEnabled() {
+        return configModel.getUrlArena().isEnabled();
+    }
+
+    public int getUrlArenaChunkBytes() {
+        return configModel.getUrlArena().getChunkBytes();
+    }
+
+    public long getUrlArenaMaxBytes() {
+        return configModel.getUrlArena().getMaxBytes();
+    }
+
+    public boolean isHotCacheEnabled() {
+        return configModel.getHotCache().isEnabled();
+    }
+
+    public long getHotCacheMaxWeightBytes() {
+        return configModel.getHotCache().getMaxWeightBytes();
+    }
+
+    public boolean isRefreshEnabled() {
+        return configModel.getRefresh().isEnabled();
+    }
+
+    public long getRefreshDebounceMillis() {
+        return configModel.getRefresh().getDebounceMillis();
+    }
+
+    public long getRefreshMaxIntervalMillis() {
+        return configModel.getRefresh().getMaxIntervalMillis();
+    }
+
+    public String getPersistenceFsync() {
+        return configModel.getPersistence().getFsync();
+    }
+
+    public long getPersistenceFsyncIntervalMillis() {
+        return configModel.getPersistence().getFsyncIntervalMillis();
+    }
+
+    public int getPersistenceMaxBatchRecords() {
+        return configModel.getPersistence().getMaxBatchRecords();
+    }
+
+    public int getPersistenceQueueCapacity() {
+        return configModel.getPersistence().getQueueCapacity();
+    }
+
     // URL Shortener config
     public String getBaseUrl() {
         return configModel.getUrlShortener().getBaseUrl();
@@ -92,8 +210,57 @@ public class Config {
         return configModel.getUrlShortener().getAlphabet();
     }
 
+    public String getCodeGenerator() {
+        return configModel.getUrlShortener().getCodeGenerator();
+    }
+
+    public int getIdBlockSize() {
+        return configModel.getUrlShortener().getIdBlockSize();
+    }
+
+    public int getLockStripes() {
+        return configModel.getUrlShortener().getLockStripes();
+    }
+
     // TTL Service config
     public long getCleanupIntervalMinutes() {
         return configModel.getTtlService().getCleanupIntervalMinutes();
     }
+
+    public long getSweepIntervalSeconds() {
+        return configModel.getTtlService().getSweepIntervalSeconds();
+    }
+
+    public int getSweepSegments() {
+        return configModel.getTtlService().getSweepSegments();
+    }
+
+    public int getSweepChunkSize() {
+        return configModel.getTtlService().getSweepChunkSize();
+    }
+
+    public int getSweepParallelism() {
+        return configModel.getTtlService().getSweepParallelism();
+    }
+
+    // Server config
+    public String getServerHost() {
+        return configModel.getServer().getHost();
+    }
+
+    public int getServerPort() {
+        return configModel.getServer().getPort();
+    }
+
+    public int getServerBacklog() {
+        return configModel.getServer().getBacklog();
+    }
+
+    public int getServerMaxThreads() {
+        return configModel.getServer().getMaxThreads();
+    }
+
+    public int getServerQueueCapacity() {
+        return configModel.getServer().getQueueCapacity();
+    }
 }
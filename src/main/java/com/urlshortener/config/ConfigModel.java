@@ -5,8 +5,16 @@ package com.urlshortener.config;
  */
 public class ConfigModel {
     private StorageConfig storage;
+    private CompactionConfig compaction = new CompactionConfig();
+    private ClickBufferConfig clickBuffer = new ClickBufferConfig();
+    private BloomFilterConfig bloomFilter = new BloomFilterConfig();
+    private UrlArenaConfig urlArena = new UrlArenaConfig();
+    private HotCacheConfig hotCache = new HotCacheConfig();
+    private RefreshConfig refresh = new RefreshConfig();
+    private PersistenceConfig persistence = new PersistenceConfig();
     private UrlShortenerConfig urlShortener;
     private TTLServiceConfig ttlService;
+    private ServerConfig server = new ServerConfig();
 
     public StorageConfig getStorage() {
         return storage;
@@ -16,6 +24,62 @@ public class ConfigModel {
         this.storage = storage;
     }
 
+    public CompactionConfig getCompaction() {
+        return compaction;
+    }
+
+    public void setCompaction(CompactionConfig compaction) {
+        this.compaction = compaction;
+    }
+
+    public ClickBufferConfig getClickBuffer() {
+        return clickBuffer;
+    }
+
+    public void setClickBuffer(ClickBufferConfig clickBuffer) {
+        this.clickBuffer = clickBuffer;
+    }
+
+    public BloomFilterConfig getBloomFilter() {
+        return bloomFilter;
+    }
+
+    public void setBloomFilter(BloomFilterConfig bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
+    public UrlArenaConfig getUrlArena() {
+        return urlArena;
+    }
+
+    public void setUrlArena(UrlArenaConfig urlArena) {
+        this.urlArena = urlArena;
+    }
+
+    public HotCacheConfig getHotCache() {
+        return hotCache;
+    }
+
+    public void setHotCache(HotCacheConfig hotCache) {
+        this.hotCache = hotCache;
+    }
+
+    public RefreshConfig getRefresh() {
+        return refresh;
+    }
+
+    public void setRefresh(RefreshConfig refresh) {
+        this.refresh = refresh;
+    }
+
+    public PersistenceConfig getPersistence() {
+        return persistence;
+    }
+
+    public void setPersistence(PersistenceConfig persistence) {
+        this.persistence = persistence;
+    }
+
     public UrlShortenerConfig getUrlShortener() {
         return urlShortener;
     }
@@ -31,4 +95,12 @@ public class ConfigModel {
     public void setTtlService(TTLServiceConfig ttlService) {
         this.ttlService = ttlService;
     }
+
+    public ServerConfig getServer() {
+        return server;
+    }
+
+    public void setServer(ServerConfig server) {
+        this.server = server;
+    }
 }
@@ -0,0 +1,26 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация кэша горячих ссылок (HotLinkCache)
+ * maxWeightBytes - примерный объем памяти под кэш; не зависит от общего числа ссылок
+ */
+public class HotCacheConfig {
+    private boolean enabled = true;
+    private long maxWeightBytes = 32L * 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    public void setMaxWeightBytes(long maxWeightBytes) {
+        this.maxWeightBytes = maxWeightBytes;
+    }
+}
@@ -0,0 +1,45 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация конвейера сохранения изменений (PersistencePipeline)
+ * fsync - когда сбрасывать записанное на диск: none, interval (не чаще fsyncIntervalMillis) или commit (каждую группу)
+ * maxBatchRecords - максимум записей в одной групповой фиксации, queueCapacity - размер очереди постановок
+ */
+public class PersistenceConfig {
+    private String fsync = "interval";
+    private long fsyncIntervalMillis = 100;
+    private int maxBatchRecords = 10000;
+    private int queueCapacity = 65536;
+
+    public String getFsync() {
+        return fsync;
+    }
+
+    public void setFsync(String fsync) {
+        this.fsync = fsync;
+    }
+
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    public void setFsyncIntervalMillis(long fsyncIntervalMillis) {
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    public int getMaxBatchRecords() {
+        return maxBatchRecords;
+    }
+
+    public void setMaxBatchRecords(int maxBatchRecords) {
+        this.maxBatchRecords = maxBatchRecords;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,36 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация подхвата изменений, сделанных в хранилище другими процессами (StorageWatcher)
+ * debounceMillis - сколько ждать после события файловой системы, чтобы собрать пачку изменений
+ * maxIntervalMillis - максимальный интервал между проверками, если события не приходят
+ */
+public class RefreshConfig {
+    private boolean enabled = false;
+    private long debounceMillis = 50;
+    private long maxIntervalMillis = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    public long getMaxIntervalMillis() {
+        return maxIntervalMillis;
+    }
+
+    public void setMaxIntervalMillis(long maxIntervalMillis) {
+        this.maxIntervalMillis = maxIntervalMillis;
+    }
+}
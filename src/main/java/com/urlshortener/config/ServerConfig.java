@@ -0,0 +1,52 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация встроенного HTTP-сервера (режим --serve)
+ */
+public class ServerConfig {
+    private String host = "0.0.0.0";
+    private int port = 8080;
+    private int backlog = 1024;
+    private int maxThreads = 200;
+    private int queueCapacity = 10000;
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
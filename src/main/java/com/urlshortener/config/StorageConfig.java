@@ -7,6 +7,14 @@ public class StorageConfig {
     private String directory;
     private String userLinksFile;
     private String activeUsersFile;
+    private boolean writeAheadLog = false;
+    private String logFile = "user-links.log";
+    private int shardCount = 1;
+    private String idAllocatorFile = "id-allocator.dat";
+    // Формат хранилища: json (снимок + журнал) или binary (файлы, отображенные в память)
+    private String format = "json";
+    private String binaryFile = "user-links.bin";
+    private String binaryStringsFile = "user-links.strings";
 
     public String getDirectory() {
         return directory;
@@ -31,4 +39,60 @@ public class StorageConfig {
     public void setActiveUsersFile(String activeUsersFile) {
         this.activeUsersFile = activeUsersFile;
     }
+
+    public boolean isWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    public void setWriteAheadLog(boolean writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public String getLogFile() {
+        return logFile;
+    }
+
+    public void setLogFile(String logFile) {
+        this.logFile = logFile;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public String getIdAllocatorFile() {
+        return idAllocatorFile;
+    }
+
+    public void setIdAllocatorFile(String idAllocatorFile) {
+        this.idAllocatorFile = idAllocatorFile;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getBinaryFile() {
+        return binaryFile;
+    }
+
+    public void setBinaryFile(String binaryFile) {
+        this.binaryFile = binaryFile;
+    }
+
+    public String getBinaryStringsFile() {
+        return binaryStringsFile;
+    }
+
+    public void setBinaryStringsFile(String binaryStringsFile) {
+        this.binaryStringsFile = binaryStringsFile;
+    }
 }
@@ -5,6 +5,12 @@ package com.urlshortener.config;
  */
 public class TTLServiceConfig {
     private long cleanupIntervalMinutes;
+    // Интервал очистки в секундах; если больше 0, используется вместо cleanupIntervalMinutes
+    private long sweepIntervalSeconds = 0;
+    // Очистка: сегменты индекса истечения, ссылок в одной порции (фиксируется отдельно) и потоков (0 - по числу ядер)
+    private int sweepSegments = 64;
+    private int sweepChunkSize = 1000;
+    private int sweepParallelism = 0;
 
     public long getCleanupIntervalMinutes() {
         return cleanupIntervalMinutes;
@@ -13,4 +19,36 @@ public class TTLServiceConfig {
     public void setCleanupIntervalMinutes(long cleanupIntervalMinutes) {
         this.cleanupIntervalMinutes = cleanupIntervalMinutes;
     }
+
+    public long getSweepIntervalSeconds() {
+        return sweepIntervalSeconds;
+    }
+
+    public void setSweepIntervalSeconds(long sweepIntervalSeconds) {
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+    }
+
+    public int getSweepSegments() {
+        return sweepSegments;
+    }
+
+    public void setSweepSegments(int sweepSegments) {
+        this.sweepSegments = sweepSegments;
+    }
+
+    public int getSweepChunkSize() {
+        return sweepChunkSize;
+    }
+
+    public void setSweepChunkSize(int sweepChunkSize) {
+        this.sweepChunkSize = sweepChunkSize;
+    }
+
+    public int getSweepParallelism() {
+        return sweepParallelism;
+    }
+
+    public void setSweepParallelism(int sweepParallelism) {
+        this.sweepParallelism = sweepParallelism;
+    }
 }
@@ -0,0 +1,35 @@
+package com.urlshortener.config;
+
+/**
+ * Конфигурация хранения URL вне кучи (UrlArena)
+ * maxBytes - бюджет памяти вне кучи; если он исчерпан, новые URL остаются в куче
+ */
+public class UrlArenaConfig {
+    private boolean enabled = false;
+    private int chunkBytes = 64 * 1024 * 1024;
+    private long maxBytes = 1024L * 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = chunkBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
@@ -8,6 +8,10 @@ public class UrlShortenerConfig {
     private long defaultTtlHours;
     private int codeLength;
     private String alphabet;
+    // Генератор кодов: random (хеш + случайная соль) или sequence (последовательные идентификаторы)
+    private String codeGenerator = "random";
+    private int idBlockSize = 1000;
+    private int lockStripes = 1024;
 
     public String getBaseUrl() {
         return baseUrl;
@@ -40,4 +44,28 @@ public class UrlShortenerConfig {
     public void setAlphabet(String alphabet) {
         this.alphabet = alphabet;
     }
+
+    public String getCodeGenerator() {
+        return codeGenerator;
+    }
+
+    public void setCodeGenerator(String codeGenerator) {
+        this.codeGenerator = codeGenerator;
+    }
+
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
 }
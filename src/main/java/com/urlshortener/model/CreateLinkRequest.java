@@ -0,0 +1,28 @@
+package com.urlshortener.model;
+
+/**
+ * Запрос на создание короткой ссылки (элемент пакетного создания)
+ */
+public class CreateLinkRequest {
+    private final String originalUrl;
+    private final String userNickname;
+    private final Integer clickLimit;
+
+    public CreateLinkRequest(String originalUrl, String userNickname, Integer clickLimit) {
+        this.originalUrl = originalUrl;
+        this.userNickname = userNickname;
+        this.clickLimit = clickLimit;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public String getUserNickname() {
+        return userNickname;
+    }
+
+    public Integer getClickLimit() {
+        return clickLimit;
+    }
+}
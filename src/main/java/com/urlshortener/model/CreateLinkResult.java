@@ -0,0 +1,34 @@
+package com.urlshortener.model;
+
+/**
+ * Результат создания одной ссылки в пакете: короткий URL или сообщение об ошибке
+ */
+public class CreateLinkResult {
+    private final String shortUrl;
+    private final String error;
+
+    private CreateLinkResult(String shortUrl, String error) {
+        this.shortUrl = shortUrl;
+        this.error = error;
+    }
+
+    public static CreateLinkResult success(String shortUrl) {
+        return new CreateLinkResult(shortUrl, null);
+    }
+
+    public static CreateLinkResult failure(String error) {
+        return new CreateLinkResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public String getShortUrl() {
+        return shortUrl;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,19 +1,47 @@
 package com.urlshortener.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Модель укороченной ссылки
+ * Счетчик кликов потокобезопасен без блокировок: для ссылок с лимитом клик занимается через CAS,
+ * поэтому лимит не может быть превышен; для безлимитных ссылок используется LongAdder
+ * URL может быть перенесен в UrlArena вне кучи (moveUrlTo), тогда строка создается при каждом чтении
  */
 public class ShortLink {
+    private static final AtomicIntegerFieldUpdater<ShortLink> CLICK_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(ShortLink.class, "clickCount");
+    private static final AtomicReferenceFieldUpdater<ShortLink, LongAdder> UNLIMITED_CLICKS =
+            AtomicReferenceFieldUpdater.newUpdater(ShortLink.class, LongAdder.class, "unlimitedClicks");
+    // Для boolean-поля нет FieldUpdater, поэтому CAS признака активности - через VarHandle
+    private static final VarHandle ACTIVE;
+
+    static {
+        try {
+            ACTIVE = MethodHandles.lookup().findVarHandle(ShortLink.class, "isActive", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String shortCode;
     private String originalUrl;
+    // Адрес URL в арене вне кучи (если urlArena != null, originalUrl == null)
+    private transient UrlArena urlArena;
+    private transient long urlAddress;
     private String userNickname;
-    private int clickCount;
+    private volatile int clickCount;
+    // Клики безлимитной ссылки сверх clickCount (создается при первом клике)
+    private volatile LongAdder unlimitedClicks;
     private Integer clickLimit;
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
-    private boolean isActive;
+    private volatile boolean isActive;
 
     public ShortLink(String shortCode, String originalUrl, String userNickname, Integer clickLimit,
             LocalDateTime expiresAt) {
@@ -27,12 +55,62 @@ public class ShortLink {
         this.isActive = true;
     }
 
+    // Восстанавливает ссылку из сохраненного состояния
+    public static ShortLink restore(String shortCode, String originalUrl, String userNickname, int clickCount,
+            Integer clickLimit, LocalDateTime createdAt, LocalDateTime expiresAt, boolean active) {
+        ShortLink link = new ShortLink(shortCode, originalUrl, userNickname, clickLimit, expiresAt);
+        link.clickCount = clickCount;
+        link.createdAt = createdAt;
+        link.isActive = active;
+        return link;
+    }
+
     public String getShortCode() {
         return shortCode;
     }
 
     public String getOriginalUrl() {
-        return originalUrl;
+        String url = originalUrl;
+        if (url != null) {
+            return url;
+        }
+        return urlArena != null ? urlArena.get(urlAddress) : null;
+    }
+
+    // Переносит URL в арену; вызывается до того, как ссылка станет доступна другим потокам
+    // Если в арене нет места, URL остается в куче
+    public void moveUrlTo(UrlArena arena) {
+        if (originalUrl == null || urlArena != null) {
+            return;
+        }
+        long address = arena.add(originalUrl);
+        if (address >= 0) {
+            this.urlArena = arena;
+            this.urlAddress = address;
+            this.originalUrl = null;
+        }
+    }
+
+    public boolean isUrlOffHeap() {
+        return urlArena != null;
+    }
+
+    // hashCode() URL без создания строки
+    public int originalUrlHash() {
+        String url = originalUrl;
+        if (url != null) {
+            return url.hashCode();
+        }
+        return urlArena != null ? urlArena.hash(urlAddress) : 0;
+    }
+
+    // Совпадает ли URL ссылки с данным
+    public boolean hasOriginalUrl(String url) {
+        String own = originalUrl;
+        if (own != null) {
+            return own.equals(url);
+        }
+        return url.hashCode() == originalUrlHash() && url.equals(getOriginalUrl());
     }
 
     public String getUserNickname() {
@@ -40,11 +118,52 @@ public class ShortLink {
     }
 
     public int getClickCount() {
-        return clickCount;
+        LongAdder adder = unlimitedClicks;
+        if (adder == null) {
+            return clickCount;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, clickCount + adder.sum());
+    }
+
+    // Атомарно занимает один клик; возвращает false, если лимит уже исчерпан
+    public boolean tryClaimClick() {
+        if (clickLimit == null) {
+            unlimitedCounter().increment();
+            return true;
+        }
+
+        int current;
+        do {
+            current = clickCount;
+            if (current >= clickLimit) {
+                return false;
+            }
+        } while (!CLICK_COUNT.compareAndSet(this, current, current + 1));
+        return true;
+    }
+
+    // Устанавливает абсолютное значение счетчика (используется при восстановлении из журнала)
+    public void setClickCount(int clickCount) {
+        this.unlimitedClicks = null;
+        this.clickCount = clickCount;
+    }
+
+    // Добавляет клики, сделанные по ссылке в других процессах
+    public void addClicks(int clicks) {
+        if (clickLimit == null) {
+            unlimitedCounter().add(clicks);
+        } else {
+            CLICK_COUNT.addAndGet(this, clicks);
+        }
     }
 
-    public void incrementClickCount() {
-        this.clickCount++;
+    private LongAdder unlimitedCounter() {
+        LongAdder adder = unlimitedClicks;
+        if (adder == null) {
+            UNLIMITED_CLICKS.compareAndSet(this, null, new LongAdder());
+            adder = unlimitedClicks;
+        }
+        return adder;
     }
 
     public Integer getClickLimit() {
@@ -67,12 +186,17 @@ public class ShortLink {
         isActive = active;
     }
 
+    // Атомарно снимает признак активности; true - только у вызова, который его действительно снял
+    public boolean deactivate() {
+        return ACTIVE.compareAndSet(this, true, false);
+    }
+
     public boolean isExpired() {
         return LocalDateTime.now().isAfter(expiresAt);
     }
 
     public boolean isClickLimitExceeded() {
-        return clickLimit != null && clickCount >= clickLimit;
+        return clickLimit != null && getClickCount() >= clickLimit;
     }
 
     public boolean canBeAccessed() {
@@ -82,7 +206,7 @@ public class ShortLink {
     @Override
     public String toString() {
         return String.format("ShortLink{code='%s', url='%s', clicks=%d/%s, expires=%s, active=%s}",
-                shortCode, originalUrl, clickCount,
+                shortCode, getOriginalUrl(), getClickCount(),
                 clickLimit != null ? clickLimit.toString() : "unlimited",
                 expiresAt, isActive);
     }
@@ -0,0 +1,78 @@
+package com.urlshortener.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Арена вне кучи для байтов оригинальных URL
+ * URL дописываются в блоки ByteBuffer.allocateDirect как [hashCode][длина][UTF-8 байты]
+ * и адресуются long-ом (номер блока << 32 | смещение); String создается только при чтении
+ * Место удаленных ссылок не переиспользуется и освобождается при перезапуске
+ * Объем арены ограничен maxBytes; JVM должна быть запущена с -XX:MaxDirectMemorySize не меньше этого значения
+ */
+public class UrlArena {
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final int chunkBytes;
+    private final long maxBytes;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private ByteBuffer current;
+    private long usedBytes;
+
+    public UrlArena(int chunkBytes, long maxBytes) {
+        this.chunkBytes = chunkBytes;
+        this.maxBytes = maxBytes;
+    }
+
+    // Копирует URL в арену и возвращает его адрес; -1, если бюджет арены исчерпан
+    public synchronized long add(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = HEADER_BYTES + bytes.length;
+        if (recordBytes > chunkBytes) {
+            return -1;
+        }
+        if (current == null || current.remaining() < recordBytes) {
+            if ((long) (chunks.length + 1) * chunkBytes > maxBytes) {
+                return -1;
+            }
+            current = ByteBuffer.allocateDirect(chunkBytes);
+            ByteBuffer[] grown = new ByteBuffer[chunks.length + 1];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            grown[chunks.length] = current;
+            chunks = grown;
+        }
+
+        int offset = current.position();
+        current.putInt(url.hashCode());
+        current.putInt(bytes.length);
+        current.put(bytes);
+        usedBytes += recordBytes;
+        return ((long) (chunks.length - 1) << 32) | offset;
+    }
+
+    // Читает URL по адресу
+    public String get(long address) {
+        ByteBuffer chunk = chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        int length = chunk.getInt(offset + Integer.BYTES);
+        byte[] bytes = new byte[length];
+        chunk.get(offset + HEADER_BYTES, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // hashCode() строки URL по адресу, без создания строки
+    public int hash(long address) {
+        return chunks[(int) (address >>> 32)].getInt((int) address);
+    }
+
+    // Байт в арене занято записями
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    // Байт памяти вне кучи выделено под блоки
+    public long getReservedBytes() {
+        return (long) chunks.length * chunkBytes;
+    }
+}
@@ -0,0 +1,354 @@
+package com.urlshortener.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.urlshortener.config.Config;
+import com.urlshortener.model.CreateLinkRequest;
+import com.urlshortener.model.CreateLinkResult;
+import com.urlshortener.model.ShortLink;
+import com.urlshortener.service.LocalDateTimeAdapter;
+import com.urlshortener.service.UrlShortenerService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Встроенный HTTP-сервер редиректов на базе com.sun.net.httpserver
+ * GET /{code}                          - редирект 302 на оригинальный URL
+ * POST /api/links                      - создание ссылки, тело: {"url": ..., "nickname": ..., "clickLimit": ...}
+ * POST /api/links/batch                - создание пачки ссылок, тело: массив объектов как в POST /api/links
+ * GET /api/links/{code}                - информация о ссылке
+ * DELETE /api/links/{code}?nickname=.. - удаление ссылки владельцем
+ */
+public class RedirectServer {
+    private static final String API_PREFIX = "/api/links";
+    private static final String BATCH_PATH = API_PREFIX + "/batch";
+
+    private final Config config = Config.getInstance();
+    private final UrlShortenerService urlShortenerService;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(java.time.LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public RedirectServer(UrlShortenerService urlShortenerService) {
+        this.urlShortenerService = urlShortenerService;
+    }
+
+    // Запускает сервер на адресе из конфига
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(config.getServerHost(), config.getServerPort()),
+                config.getServerBacklog());
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    // Graceful shutdown
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Виртуальный поток на каждый запрос, если JVM их поддерживает (Java 21+),
+    // иначе - пул из server.maxThreads обычных потоков с очередью server.queueCapacity
+    // Когда пул и очередь заполнены, запрос отклоняется и HttpServer закрывает соединение: под перегрузкой
+    // сервер сбрасывает лишние запросы, а не создает новые потоки. Поток приема соединений не должен
+    // задерживаться (ждать места в очереди, выполнять запрос сам или создавать потоки пула) - пока он занят,
+    // HttpServer теряет соединения других клиентов, поэтому потоки пула создаются заранее
+    private ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(1, config.getServerMaxThreads());
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, config.getServerQueueCapacity())),
+                    runnable -> new Thread(runnable, "http-worker-" + threadNumber.incrementAndGet()),
+                    new ThreadPoolExecutor.AbortPolicy());
+            pool.prestartAllCoreThreads();
+            return pool;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (path.equals(API_PREFIX) || path.equals(API_PREFIX + "/")) {
+                if (method.equals("POST")) {
+                    handleCreate(exchange);
+                } else {
+                    sendJson(exchange, 405, error("Метод не поддерживается"));
+                }
+            } else if (path.equals(BATCH_PATH) && method.equals("POST")) {
+                handleBatchCreate(exchange);
+            } else if (path.startsWith(API_PREFIX + "/")) {
+                String code = path.substring(API_PREFIX.length() + 1);
+                if (method.equals("GET")) {
+                    handleInfo(exchange, code);
+                } else if (method.equals("DELETE")) {
+                    handleDelete(exchange, code);
+                } else {
+                    sendJson(exchange, 405, error("Метод не поддерживается"));
+                }
+            } else if (method.equals("GET")) {
+                handleRedirect(exchange, path.substring(1));
+            } else {
+                sendJson(exchange, 405, error("Метод не поддерживается"));
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка при обработке запроса " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI().getPath() + ": " + e);
+            // Если обработчик уже отправил заголовки, другой ответ отправить нельзя - соединение просто закрывается
+            if (exchange.getResponseCode() == -1) {
+                sendJson(exchange, 500, error("Внутренняя ошибка сервера"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // GET /{code}
+    private void handleRedirect(HttpExchange exchange, String code) throws IOException {
+        if (code.isEmpty() || code.contains("/")) {
+            sendJson(exchange, 404, error("Ссылка не найдена"));
+            return;
+        }
+
+        String originalUrl = urlShortenerService.getOriginalUrl(code);
+        if (originalUrl != null) {
+            exchange.getResponseHeaders().set("Location", originalUrl);
+            exchange.sendResponseHeaders(302, -1);
+            return;
+        }
+
+        ShortLink link = urlShortenerService.getLinkInfo(code);
+        if (link == null) {
+            sendJson(exchange, 404, error("Ссылка не найдена"));
+        } else if (link.isExpired()) {
+            sendJson(exchange, 410, error("Ссылка истекла"));
+        } else {
+            sendJson(exchange, 410, error("Лимит переходов исчерпан"));
+        }
+    }
+
+    // POST /api/links
+    private void handleCreate(HttpExchange exchange) throws IOException {
+        JsonObject body;
+        try {
+            String content = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            body = JsonParser.parseString(content).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendJson(exchange, 400, error("Некорректный JSON"));
+            return;
+        }
+
+        String url;
+        String nickname;
+        try {
+            url = getString(body, "url");
+            nickname = getString(body, "nickname");
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        Integer clickLimit = null;
+        if (body.has("clickLimit") && !body.get("clickLimit").isJsonNull()) {
+            try {
+                clickLimit = body.get("clickLimit").getAsInt();
+            } catch (NumberFormatException | UnsupportedOperationException e) {
+                sendJson(exchange, 400, error("Неверный формат лимита переходов"));
+                return;
+            }
+        }
+
+        if (nickname == null || nickname.isBlank()) {
+            sendJson(exchange, 400, error("Никнейм не может быть пустым"));
+            return;
+        }
+        if (clickLimit != null && clickLimit <= 0) {
+            sendJson(exchange, 400, error("Лимит должен быть положительным числом"));
+            return;
+        }
+
+        try {
+            String shortUrl = urlShortenerService.createShortLink(url, nickname.trim(), clickLimit);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("shortUrl", shortUrl);
+            response.put("code", shortUrl.substring(shortUrl.lastIndexOf('/') + 1));
+            sendJson(exchange, 201, response);
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    // POST /api/links/batch
+    // Ответ - массив в порядке запросов: {"shortUrl", "code"} или {"error"} для каждого элемента
+    private void handleBatchCreate(HttpExchange exchange) throws IOException {
+        JsonArray body;
+        try {
+            String content = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            body = JsonParser.parseString(content).getAsJsonArray();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendJson(exchange, 400, error("Некорректный JSON"));
+            return;
+        }
+
+        List<CreateLinkRequest> requests = new ArrayList<>(body.size());
+        // Ошибки разбора элементов: такой элемент передается сервису как пустой, в ответ попадает эта ошибка
+        Map<Integer, String> itemErrors = new HashMap<>();
+        for (JsonElement element : body) {
+            CreateLinkRequest request = null;
+            if (element.isJsonObject()) {
+                JsonObject item = element.getAsJsonObject();
+                Integer clickLimit = null;
+                try {
+                    if (item.has("clickLimit") && !item.get("clickLimit").isJsonNull()) {
+                        clickLimit = item.get("clickLimit").getAsInt();
+                    }
+                } catch (NumberFormatException | UnsupportedOperationException e) {
+                    clickLimit = 0; // будет отклонен как неположительный
+                }
+                try {
+                    String nickname = getString(item, "nickname");
+                    request = new CreateLinkRequest(getString(item, "url"), nickname != null ? nickname.trim() : null,
+                            clickLimit);
+                } catch (IllegalArgumentException e) {
+                    itemErrors.put(requests.size(), e.getMessage());
+                }
+            }
+            requests.add(request);
+        }
+
+        List<Map<String, Object>> response = new ArrayList<>(requests.size());
+        List<CreateLinkResult> results = urlShortenerService.createShortLinks(requests);
+        for (int i = 0; i < results.size(); i++) {
+            CreateLinkResult result = results.get(i);
+            if (itemErrors.containsKey(i)) {
+                response.add(error(itemErrors.get(i)));
+            } else if (result.isSuccess()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("shortUrl", result.getShortUrl());
+                item.put("code", result.getShortUrl().substring(result.getShortUrl().lastIndexOf('/') + 1));
+                response.add(item);
+            } else {
+                response.add(error(result.getError()));
+            }
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    // GET /api/links/{code}
+    private void handleInfo(HttpExchange exchange, String code) throws IOException {
+        ShortLink link = urlShortenerService.getLinkInfo(code);
+        if (link == null) {
+            sendJson(exchange, 404, error("Ссылка не найдена"));
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("code", link.getShortCode());
+        response.put("url", link.getOriginalUrl());
+        response.put("nickname", link.getUserNickname());
+        response.put("clickCount", link.getClickCount());
+        response.put("clickLimit", link.getClickLimit());
+        response.put("createdAt", link.getCreatedAt());
+        response.put("expiresAt", link.getExpiresAt());
+        response.put("status", urlShortenerService.getLinkStatus(code));
+        sendJson(exchange, 200, response);
+    }
+
+    // DELETE /api/links/{code}?nickname=...
+    private void handleDelete(HttpExchange exchange, String code) throws IOException {
+        String nickname = getQueryParameter(exchange, "nickname");
+        if (nickname == null || nickname.isBlank()) {
+            sendJson(exchange, 400, error("Никнейм не может быть пустым"));
+            return;
+        }
+        // Никнейм обрезается так же, как при создании ссылки
+        nickname = nickname.trim();
+
+        if (urlShortenerService.deleteLink(code, nickname)) {
+            exchange.sendResponseHeaders(204, -1);
+        } else if (urlShortenerService.getLinkInfo(code) == null) {
+            sendJson(exchange, 404, error("Ссылка не найдена"));
+        } else {
+            sendJson(exchange, 403, error("Вы не можете удалить эту ссылку. Вы не являетесь её создателем."));
+        }
+    }
+
+    // Строковое поле JSON; число, объект или массив - ошибка запроса (IllegalArgumentException)
+    private String getString(JsonObject body, String name) {
+        if (!body.has(name) || body.get(name).isJsonNull()) {
+            return null;
+        }
+        JsonElement value = body.get(name);
+        if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+            throw new IllegalArgumentException("Поле " + name + " должно быть строкой");
+        }
+        return value.getAsString();
+    }
+
+    private String getQueryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("error", message);
+        return response;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Буфер кликов по ссылкам
+ * Запоминает ссылки с измененным счетчиком и сохраняет их пачками:
+ * по таймеру (окно долговечности) или при достижении порога количества кликов
+ * Актуальное значение счетчика всегда хранится в самой ссылке, поэтому проверка лимита остается точной
+ */
+public class ClickBuffer {
+    private final Map<String, ShortLink> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingClicks = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Consumer<List<ShortLink>> flusher;
+    private final int flushThreshold;
+    private final ScheduledExecutorService scheduler;
+
+    public ClickBuffer(Consumer<List<ShortLink>> flusher, long flushIntervalMillis, int flushThreshold) {
+        this.flusher = flusher;
+        this.flushThreshold = flushThreshold;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "click-buffer-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Отмечает клик по ссылке; при достижении порога запускает сохранение в фоне
+    public void add(ShortLink link) {
+        pending.put(link.getShortCode(), link);
+        if (pendingClicks.incrementAndGet() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    // Количество ссылок, ожидающих сохранения
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // Сохраняет накопленные изменения
+    // Значение счетчика читается уже после извлечения ссылки из буфера, поэтому параллельный клик
+    // либо попадет в текущую пачку, либо останется в буфере до следующей
+    public synchronized void flush() {
+        flushRequested.set(false);
+        pendingClicks.set(0);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<ShortLink> batch = new ArrayList<>(pending.size());
+        for (Iterator<ShortLink> it = pending.values().iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            it.remove();
+        }
+
+        try {
+            flusher.accept(batch);
+        } catch (Exception e) {
+            System.err.println("Ошибка при сохранении счетчиков кликов: " + e.getMessage());
+            // Возвращаем ссылки в буфер, чтобы повторить попытку при следующем сохранении
+            for (ShortLink link : batch) {
+                pending.putIfAbsent(link.getShortCode(), link);
+            }
+        }
+    }
+
+    // Останавливает фоновое сохранение и сбрасывает оставшиеся изменения
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+}
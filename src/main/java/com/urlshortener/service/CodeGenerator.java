@@ -0,0 +1,9 @@
+package com.urlshortener.service;
+
+/**
+ * Генератор коротких кодов для ссылок
+ */
+public interface CodeGenerator {
+    // Возвращает код, еще не занятый другой ссылкой
+    String generate(String userNickname, String originalUrl);
+}
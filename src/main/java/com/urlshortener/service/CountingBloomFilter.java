@@ -0,0 +1,239 @@
+package com.urlshortener.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Счетный фильтр Блума по коротким кодам
+ * Каждая позиция - 4-битный счетчик (16 счетчиков в одном long), поэтому коды можно удалять
+ * Переполненный счетчик (15) больше не меняется: это дает лишь ложные срабатывания, но не пропуски
+ * mightContain == false означает, что кода точно нет
+ * Счетчики меняются через CAS; изменения берут разделяемую блокировку, а сохранение - эксклюзивную,
+ * чтобы в файл попадали согласованные счетчики и fingerprint
+ */
+public class CountingBloomFilter {
+    private static final int FILE_MAGIC = 0x43424631; // "CBF1"
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xFL;
+
+    private final long counterCount;
+    private final int hashCount;
+    private final AtomicLongArray words;
+
+    // Количество кодов и сумма их хешей - по ним проверяется, что сохраненный фильтр соответствует хранилищу
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong fingerprint = new AtomicLong();
+    private final ReadWriteLock saveLock = new ReentrantReadWriteLock();
+
+    private CountingBloomFilter(long counterCount, int hashCount) {
+        this.counterCount = counterCount;
+        this.hashCount = hashCount;
+        this.words = new AtomicLongArray((int) ((counterCount + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+    }
+
+    // Фильтр для expectedCodes кодов с заданной вероятностью ложного срабатывания
+    public static CountingBloomFilter create(long expectedCodes, double falsePositiveRate) {
+        long n = Math.max(1, expectedCodes);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new CountingBloomFilter(Math.max(COUNTERS_PER_WORD, m), k);
+    }
+
+    public void add(String code) {
+        long hash = hash(code);
+        saveLock.readLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                increment(index(hash, i));
+            }
+            size.incrementAndGet();
+            fingerprint.addAndGet(hash);
+        } finally {
+            saveLock.readLock().unlock();
+        }
+    }
+
+    public void remove(String code) {
+        long hash = hash(code);
+        saveLock.readLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                decrement(index(hash, i));
+            }
+            size.decrementAndGet();
+            fingerprint.addAndGet(-hash);
+        } finally {
+            saveLock.readLock().unlock();
+        }
+    }
+
+    public boolean mightContain(String code) {
+        long hash = hash(code);
+        for (int i = 0; i < hashCount; i++) {
+            if (counter(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Совпадают ли размеры фильтров (для проверки сохраненного фильтра после смены настроек)
+    public boolean hasSameShape(CountingBloomFilter other) {
+        return counterCount == other.counterCount && hashCount == other.hashCount;
+    }
+
+    // Количество кодов в фильтре
+    public long size() {
+        return size.get();
+    }
+
+    // Ожидаемая доля ложных срабатываний при текущем заполнении: (1 - e^(-kn/m))^k
+    public double getExpectedFalsePositiveRate() {
+        double fill = 1 - Math.exp(-(double) hashCount * size.get() / counterCount);
+        return Math.pow(fill, hashCount);
+    }
+
+    // Память под счетчики в байтах
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    // Сумма хешей набора кодов, сравнивается с fingerprint сохраненного фильтра
+    public static long fingerprintOf(Iterable<String> codes) {
+        long sum = 0;
+        for (String code : codes) {
+            sum += hash(code);
+        }
+        return sum;
+    }
+
+    public long getFingerprint() {
+        return fingerprint.get();
+    }
+
+    // Атомарно сохраняет фильтр в файл
+    // Временный файл у каждого сохранения свой, поэтому процессы с общим хранилищем не мешают друг другу
+    public void save(Path path) throws IOException {
+        Path tempPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            writeTo(tempPath);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private void writeTo(Path tempPath) throws IOException {
+        saveLock.writeLock().lock();
+        try (OutputStream out = Files.newOutputStream(tempPath);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(FILE_MAGIC);
+            data.writeLong(counterCount);
+            data.writeInt(hashCount);
+            data.writeLong(size.get());
+            data.writeLong(fingerprint.get());
+            for (int i = 0; i < words.length(); i++) {
+                data.writeLong(words.get(i));
+            }
+        } finally {
+            saveLock.writeLock().unlock();
+        }
+    }
+
+    // Загружает фильтр из файла; null, если файла нет или он поврежден
+    public static CountingBloomFilter load(Path path) {
+        try (InputStream in = Files.newInputStream(path);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != FILE_MAGIC) {
+                return null;
+            }
+            long counterCount = data.readLong();
+            int hashCount = data.readInt();
+            if (counterCount <= 0 || counterCount > (long) Integer.MAX_VALUE * COUNTERS_PER_WORD || hashCount <= 0) {
+                return null;
+            }
+            CountingBloomFilter filter = new CountingBloomFilter(counterCount, hashCount);
+            filter.size.set(data.readLong());
+            filter.fingerprint.set(data.readLong());
+            for (int i = 0; i < filter.words.length(); i++) {
+                filter.words.set(i, data.readLong());
+            }
+            return filter;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать фильтр Блума, он будет построен заново: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private int counter(long index) {
+        long word = words.get((int) (index / COUNTERS_PER_WORD));
+        return (int) ((word >>> shift(index)) & COUNTER_MASK);
+    }
+
+    private void increment(long index) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        long word;
+        do {
+            word = words.get(wordIndex);
+            if (((word >>> shift) & COUNTER_MASK) == COUNTER_MASK) {
+                return; // счетчик насыщен
+            }
+        } while (!words.compareAndSet(wordIndex, word, word + (1L << shift)));
+    }
+
+    private void decrement(long index) {
+        int wordIndex = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        long word;
+        do {
+            word = words.get(wordIndex);
+            long value = (word >>> shift) & COUNTER_MASK;
+            if (value == 0 || value == COUNTER_MASK) {
+                return; // насыщенный счетчик не уменьшается: неизвестно, сколько кодов на него пришлось
+            }
+        } while (!words.compareAndSet(wordIndex, word, word - (1L << shift)));
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * 4;
+    }
+
+    // Двойное хеширование: i-я позиция = h1 + i * h2
+    private long index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + (long) i * h2, counterCount);
+    }
+
+    // 64-битный хеш кода: FNV-1a с финальным перемешиванием
+    private static long hash(String code) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < code.length(); i++) {
+            h ^= code.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
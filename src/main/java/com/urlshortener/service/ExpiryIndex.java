@@ -0,0 +1,94 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Индекс ссылок по времени истечения (min-heap по expiresAt)
+ * Очистка извлекает только действительно истекшие ссылки, не просматривая остальные
+ * Удаленные ссылки не ищутся в куче, а помечаются устаревшими и вычищаются пачкой,
+ * когда их становится больше половины
+ * Индекс разбит на сегменты по хешу короткого кода, у каждого своя куча и блокировка:
+ * сегменты очищаются параллельно и порциями, не останавливая добавление в остальные
+ */
+public class ExpiryIndex {
+    private static final Comparator<ShortLink> BY_EXPIRY = Comparator.comparing(ShortLink::getExpiresAt);
+
+    private final Predicate<ShortLink> isLive;
+    private final Segment[] segments;
+
+    // Куча одного сегмента; доступ под блокировкой самого сегмента
+    private static final class Segment {
+        final PriorityQueue<ShortLink> heap = new PriorityQueue<>(BY_EXPIRY);
+        int staleCount;
+    }
+
+    // isLive - проверяет, что ссылка все еще присутствует в хранилище
+    public ExpiryIndex(Predicate<ShortLink> isLive) {
+        this(isLive, 1);
+    }
+
+    public ExpiryIndex(Predicate<ShortLink> isLive, int segmentCount) {
+        this.isLive = isLive;
+        this.segments = new Segment[Math.max(1, segmentCount)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public void add(ShortLink link) {
+        Segment segment = segmentOf(link);
+        synchronized (segment) {
+            segment.heap.add(link);
+        }
+    }
+
+    // Отмечает, что ссылка удалена из хранилища
+    public void markRemoved(ShortLink link) {
+        Segment segment = segmentOf(link);
+        synchronized (segment) {
+            segment.staleCount++;
+            if (segment.staleCount > segment.heap.size() / 2) {
+                segment.heap.removeIf(stale -> !isLive.test(stale));
+                segment.staleCount = 0;
+            }
+        }
+    }
+
+    // Извлекает не больше limit ссылок сегмента, истекших к моменту now
+    public List<ShortLink> pollExpired(int segmentIndex, LocalDateTime now, int limit) {
+        Segment segment = segments[segmentIndex];
+        List<ShortLink> expired = new ArrayList<>();
+        synchronized (segment) {
+            while (expired.size() < limit && !segment.heap.isEmpty()
+                    && now.isAfter(segment.heap.peek().getExpiresAt())) {
+                expired.add(segment.heap.poll());
+            }
+        }
+        return expired;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.heap.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentOf(ShortLink link) {
+        return segments[Math.floorMod(link.getShortCode().hashCode(), segments.length)];
+    }
+}
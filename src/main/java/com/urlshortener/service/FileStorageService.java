@@ -2,17 +2,13 @@ package com.urlshortener.service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.urlshortener.config.Config;
 import com.urlshortener.model.ShortLink;
 
-import java.io.*;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -20,21 +16,39 @@ import java.util.concurrent.ConcurrentHashMap;
  * Сервис для сохранения и загрузки данных в JSON файлы
  * Структура: nickname -> Map<URL, ShortLink>
  * Потокобезопасный доступ через FileLock
+ * В режиме журнала (writeAheadLog) изменения дописываются в лог компактными записями,
+ * а при загрузке применяются поверх снимка user-links.json
+ * Снимок периодически перезаписывается, а журнал за ним обрезается (см. LogCompactionService)
+ * При shardCount > 1 данные разбиты на сегменты по хешу короткого кода (user-links-N.json / user-links-N.log),
+ * у каждого сегмента свои файлы и блокировки
+ * При format: binary данные хранятся в файлах, отображенных в память (см. MappedLinkStore),
+ * изменения применяются к ним на месте, а shardCount не используется; несколько процессов
+ * конфликтуют в нем только на одной и той же ссылке, клики разных процессов складываются
+ * При refresh.enabled изменения других процессов можно дочитать без перезагрузки (см. readForeignChanges)
+ * Без журнала снимок сегмента перезаписывается целиком, но перед этим перечитывается с диска
+ * под блокировкой сегмента, и к нему применяются только изменения этого процесса (см. StorageShard.merge)
  */
 public class FileStorageService {
     private final Config config = Config.getInstance();
     private final Path storagePath;
-    private final Path userLinksPath;
+    private final boolean writeAheadLog;
     private final Gson gson;
+    private final StorageShard[] shards;
+    // Бинарное хранилище (null - формат json)
+    private final MappedLinkStore binaryStore;
+    // Последние сохраненные этим процессом счетчики кликов (режим без журнала): код -> клики
+    private final Map<String, Integer> savedClicks = new ConcurrentHashMap<>();
 
     public FileStorageService() {
         this.storagePath = Paths.get(config.getStorageDirectory());
-        this.userLinksPath = storagePath.resolve(config.getUserLinksFile());
+        this.writeAheadLog = config.isWriteAheadLogEnabled();
 
-        // Настраиваем Gson с адаптерами для LocalDateTime
+        // Ссылки и снимок читаются и пишутся потоковыми адаптерами без рефлексии, в компактном формате:
+        // снимок - одной строкой, журнал - одна запись на строку
+        ShortLinkAdapter linkAdapter = new ShortLinkAdapter();
         this.gson = new GsonBuilder()
-                .registerTypeAdapter(java.time.LocalDateTime.class, new LocalDateTimeAdapter())
-                .setPrettyPrinting()
+                .registerTypeAdapter(ShortLink.class, linkAdapter)
+                .registerTypeAdapter(UserLinksAdapter.TYPE, new UserLinksAdapter(linkAdapter))
                 .create();
 
         // Создаем директорию, если её нет
@@ -43,46 +57,264 @@ public class FileStorageService {
         } catch (IOException e) {
             throw new RuntimeException("Не удалось создать директорию для хранения данных: " + e.getMessage(), e);
         }
+
+        int shardCount = Math.max(1, config.getShardCount());
+        this.shards = new StorageShard[shardCount];
+        if (shardCount == 1) {
+            shards[0] = newLegacyShard();
+        } else {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new StorageShard(storagePath, shardFileName(config.getUserLinksFile(), i),
+                        shardFileName(config.getLogFile(), i), gson);
+            }
+            migrateFromSingleFile();
+        }
+        if (config.isRefreshEnabled()) {
+            for (StorageShard shard : shards) {
+                shard.trackForeignRecords();
+            }
+        }
+
+        if ("binary".equalsIgnoreCase(config.getStorageFormat())) {
+            this.binaryStore = new MappedLinkStore(storagePath, config.getBinaryFile(), config.getBinaryStringsFile(),
+                    new ShortCodePacker(config.getAlphabet()));
+            migrateToBinary();
+        } else {
+            this.binaryStore = null;
+        }
+    }
+
+    // Пишутся ли изменения записями (журнал или бинарное хранилище), а не перезаписью файла целиком
+    public boolean isWriteAheadLogEnabled() {
+        return writeAheadLog || binaryStore != null;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Номер сегмента, в котором хранится ссылка с данным кодом
+    public int shardOf(String shortCode) {
+        return Math.floorMod(shortCode.hashCode(), shards.length);
     }
 
-    // Сохраняет связи nickname -> Map<URL, ShortLink> с блокировкой файла
+    // Сохраняет связи nickname -> Map<URL, ShortLink> во все сегменты
     public void saveUserLinks(Map<String, Map<String, ShortLink>> userLinks) {
-        try (FileChannel channel = FileChannel.open(userLinksPath,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.TRUNCATE_EXISTING)) {
-
-            // Блокируем файл для записи
-            try (FileLock lock = channel.lock()) {
-                try (Writer writer = new OutputStreamWriter(
-                        new FileOutputStream(userLinksPath.toFile()))) {
-                    gson.toJson(userLinks, writer);
+        if (binaryStore != null) {
+            binaryStore.rewrite(userLinks);
+            return;
+        }
+        List<Map<String, Map<String, ShortLink>>> parts = partition(userLinks);
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].save(parts.get(i));
+        }
+    }
+
+    // Загружает связи nickname -> Map<URL, ShortLink> из всех сегментов
+    // В режиме журнала поверх снимка применяются записи из лога
+    public Map<String, Map<String, ShortLink>> loadUserLinks() {
+        if (binaryStore != null) {
+            return binaryStore.load();
+        }
+        Map<String, Map<String, ShortLink>> userLinks;
+        if (shards.length == 1) {
+            userLinks = shards[0].load(writeAheadLog);
+        } else {
+            userLinks = new ConcurrentHashMap<>();
+            for (StorageShard shard : shards) {
+                for (Map.Entry<String, Map<String, ShortLink>> entry : shard.load(writeAheadLog).entrySet()) {
+                    userLinks.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).putAll(entry.getValue());
+                }
+            }
+        }
+        if (!writeAheadLog) {
+            for (Map<String, ShortLink> userMap : userLinks.values()) {
+                for (ShortLink link : userMap.values()) {
+                    savedClicks.put(link.getShortCode(), link.getClickCount());
                 }
             }
+        }
+        return userLinks;
+    }
+
+    // Размер журнала изменений в байтах (по всем сегментам)
+    // Для бинарного хранилища - объем удаленных записей, который освободит перезапись
+    public long getLogSize() {
+        if (binaryStore != null) {
+            return binaryStore.getGarbageBytes();
+        }
+        long size = 0;
+        for (StorageShard shard : shards) {
+            size += shard.getLogSize();
+        }
+        return size;
+    }
+
+    // Записывает снимок состояния и обрезает журнал за ним, возвращает размер снимка в байтах
+    // Снимок собирается по файлам хранилища, а не по памяти процесса: так сохраняются изменения других процессов
+    public long writeSnapshot() {
+        if (binaryStore != null) {
+            return binaryStore.compact();
+        }
+        long size = 0;
+        for (StorageShard shard : shards) {
+            size += shard.compact();
+        }
+        return size;
+    }
+
+    // Дописывает записи в журналы соответствующих сегментов
+    // (без журнала - применяет их к перечитанным снимкам сегментов)
+    // Возвращает клики других процессов, которые хранилище добавило к сохраненным счетчикам: код -> количество
+    // (для бинарного хранилища и режима без журнала, в журнал счетчик пишется как есть)
+    // Коды CREATE, которые уже заняты в хранилище ссылкой другого процесса, не сохраняются и добавляются
+    // в rejectedCodes (см. detectsCodeConflicts)
+    public Map<String, Integer> appendLogRecords(List<LinkLogRecord> records, Set<String> rejectedCodes) {
+        if (binaryStore != null) {
+            return binaryStore.apply(records, rejectedCodes);
+        }
+        if (shards.length == 1) {
+            if (!writeAheadLog) {
+                return shards[0].merge(records, savedClicks, rejectedCodes);
+            }
+            shards[0].append(records);
+            return Collections.emptyMap();
+        }
+
+        Map<Integer, List<LinkLogRecord>> byShard = new TreeMap<>();
+        for (LinkLogRecord record : records) {
+            byShard.computeIfAbsent(shardOf(record.getCode()), k -> new ArrayList<>()).add(record);
+        }
+        Map<String, Integer> foreignClicks = new HashMap<>();
+        for (Map.Entry<Integer, List<LinkLogRecord>> entry : byShard.entrySet()) {
+            if (writeAheadLog) {
+                shards[entry.getKey()].append(entry.getValue());
+            } else {
+                foreignClicks.putAll(shards[entry.getKey()].merge(entry.getValue(), savedClicks, rejectedCodes));
+            }
+        }
+        return foreignClicks;
+    }
+
+    // Проверяет ли хранилище при сохранении CREATE, что код не занят другим процессом
+    // Бинарное хранилище и режим без журнала сверяются с файлами под блокировкой; журнал дописывается без проверки,
+    // поэтому при нескольких процессах с форматом json и журналом одинаковые коды возможны
+    public boolean detectsCodeConflicts() {
+        return binaryStore != null || !writeAheadLog;
+    }
+
+    // Изменения, сделанные в хранилище другими процессами с прошлого вызова (или с загрузки)
+    // Для журнала - дописанные записи всех сегментов, для бинарного хранилища - результат сравнения записей
+    StorageChanges readForeignChanges() {
+        if (binaryStore != null) {
+            return binaryStore.readChanges();
+        }
+        StorageChanges changes = new StorageChanges();
+        if (writeAheadLog) {
+            for (StorageShard shard : shards) {
+                changes.getRecords().addAll(shard.readForeignRecords());
+            }
+        }
+        return changes;
+    }
+
+    // Сбрасывает дописанные записи на диск (журналы всех сегментов или бинарное хранилище)
+    // Снимки и полная перезапись сбрасываются на диск всегда, перед подменой файла
+    public void sync() {
+        if (binaryStore != null) {
+            binaryStore.force();
+            return;
+        }
+        for (StorageShard shard : shards) {
+            shard.force();
+        }
+    }
+
+    // Раскладывает ссылки по сегментам
+    private List<Map<String, Map<String, ShortLink>>> partition(Map<String, Map<String, ShortLink>> userLinks) {
+        List<Map<String, Map<String, ShortLink>>> parts = new ArrayList<>(shards.length);
+        if (shards.length == 1) {
+            parts.add(userLinks);
+            return parts;
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new HashMap<>());
+        }
+        for (Map.Entry<String, Map<String, ShortLink>> userEntry : userLinks.entrySet()) {
+            for (Map.Entry<String, ShortLink> linkEntry : userEntry.getValue().entrySet()) {
+                parts.get(shardOf(linkEntry.getValue().getShortCode()))
+                        .computeIfAbsent(userEntry.getKey(), k -> new HashMap<>())
+                        .put(linkEntry.getKey(), linkEntry.getValue());
+            }
+        }
+        return parts;
+    }
+
+    // Переносит данные из одного файла в сегменты при первом запуске с shardCount > 1
+    // Старые файлы сохраняются с суффиксом .migrated
+    private void migrateFromSingleFile() {
+        StorageShard legacy = newLegacyShard();
+        if (!legacy.exists()) {
+            return;
+        }
+        for (StorageShard shard : shards) {
+            if (shard.exists()) {
+                System.err.println("Найдены и общий файл, и сегменты хранилища - миграция пропущена");
+                return;
+            }
+        }
+
+        saveUserLinks(legacy.load(true));
+        try {
+            legacy.renameFiles(".migrated");
         } catch (IOException e) {
-            throw new RuntimeException("Ошибка при сохранении связей пользователей: " + e.getMessage(), e);
+            throw new RuntimeException("Ошибка при миграции хранилища на сегменты: " + e.getMessage(), e);
         }
+        System.out.println("Данные хранилища перенесены в " + shards.length + " сегментов");
     }
 
-    // Загружает связи nickname -> Map<URL, ShortLink> с блокировкой файла
-    public Map<String, Map<String, ShortLink>> loadUserLinks() {
-        if (!Files.exists(userLinksPath)) {
-            return new ConcurrentHashMap<>();
-        }
-
-        try (FileChannel channel = FileChannel.open(userLinksPath, StandardOpenOption.READ)) {
-            // Блокируем файл для чтения
-            try (FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
-                try (Reader reader = new FileReader(userLinksPath.toFile())) {
-                    TypeToken<Map<String, Map<String, ShortLink>>> typeToken = new TypeToken<Map<String, Map<String, ShortLink>>>() {
-                    };
-                    Map<String, Map<String, ShortLink>> loaded = gson.fromJson(reader, typeToken.getType());
-                    return loaded != null ? new ConcurrentHashMap<>(loaded) : new ConcurrentHashMap<>();
-                }
+    // Переносит данные из json-файлов в бинарное хранилище при первом запуске с format: binary
+    // Старые файлы сохраняются с суффиксом .migrated
+    private void migrateToBinary() {
+        if (binaryStore.exists()) {
+            return;
+        }
+        boolean hasJsonData = false;
+        for (StorageShard shard : shards) {
+            hasJsonData |= shard.exists();
+        }
+        if (!hasJsonData) {
+            return;
+        }
+
+        Map<String, Map<String, ShortLink>> userLinks = new HashMap<>();
+        for (StorageShard shard : shards) {
+            for (Map.Entry<String, Map<String, ShortLink>> entry : shard.load(writeAheadLog).entrySet()) {
+                userLinks.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).putAll(entry.getValue());
+            }
+        }
+        binaryStore.rewrite(userLinks);
+        try {
+            for (StorageShard shard : shards) {
+                shard.renameFiles(".migrated");
             }
         } catch (IOException e) {
-            System.err.println("Ошибка при загрузке связей пользователей: " + e.getMessage());
-            return new ConcurrentHashMap<>();
+            throw new RuntimeException("Ошибка при миграции хранилища в бинарный формат: " + e.getMessage(), e);
+        }
+        System.out.println("Данные хранилища перенесены в бинарный формат");
+    }
+
+    private StorageShard newLegacyShard() {
+        return new StorageShard(storagePath, config.getUserLinksFile(), config.getLogFile(), gson);
+    }
+
+    // user-links.json -> user-links-3.json
+    private static String shardFileName(String fileName, int shard) {
+        int extension = fileName.lastIndexOf('.');
+        if (extension <= 0) {
+            return fileName + "-" + shard;
         }
+        return fileName.substring(0, extension) + "-" + shard + fileName.substring(extension);
     }
 }
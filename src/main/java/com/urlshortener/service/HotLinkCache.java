@@ -0,0 +1,431 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кэш горячих ссылок code -> (ShortLink, строка URL) с вытеснением W-TinyLFU
+ * Новые записи попадают в окно (LRU, 1% объема), вытесненные из окна - в основную часть
+ * (SLRU: probation 20% и protected 80%). Когда основная часть заполнена, кандидат из окна
+ * вытесняет самую давнюю запись probation только если его частота по count-min sketch выше,
+ * иначе вытесняется сам кандидат
+ * Когда кэш заполнен, код, встреченный впервые, не добавляется вовсе (как doorkeeper в TinyLFU)
+ * Объем считается в байтах (примерный вес записи), а не в количестве записей
+ * Кэш хранит уже созданную строку URL, поэтому для URL в UrlArena редирект не читает арену;
+ * клики и срок по-прежнему проверяются на самой ссылке
+ * Чтение не берет блокировок: записи лежат в ConcurrentHashMap, а обращения складываются в буферы
+ * потоков (с потерями при переполнении) и применяются к очередям и частотам под блокировкой -
+ * тем потоком, который ее получил без ожидания, или при следующем добавлении/удалении записи
+ */
+public class HotLinkCache {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    // Запись удалена из кэша; отложенные обращения к ней пропускаются
+    private static final int REMOVED = -1;
+
+    // Примерный вес записи без строк: узел, ключ в ConcurrentHashMap, ссылки
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    // Буфер обращений одного потока; при наполнении наполовину буферы применяются
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    // Закэшированная ссылка
+    public static final class Entry {
+        private final String code;
+        private final ShortLink link;
+        private final String originalUrl;
+        private final int weight;
+        // Очередь и соседи меняются только под блокировкой кэша
+        private int queue;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(String code, ShortLink link, String originalUrl) {
+            this.code = code;
+            this.link = link;
+            this.originalUrl = originalUrl;
+            this.weight = ENTRY_OVERHEAD_BYTES + 2 * (code.length() + originalUrl.length());
+        }
+
+        public ShortLink getLink() {
+            return link;
+        }
+
+        public String getOriginalUrl() {
+            return originalUrl;
+        }
+    }
+
+    // Двусвязная очередь LRU: голова - самая давняя запись
+    private static final class Queue {
+        private Entry head;
+        private Entry tail;
+        private long weight;
+
+        void addLast(Entry entry) {
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            weight += entry.weight;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Кольцевой буфер обращений: пишут потоки без блокировок, читает владелец блокировки кэша
+     * Элемент - Entry (попадание) или код (промах, учитывается только в частотах)
+     * Если буфер полон, обращение теряется: для частот и порядка LRU это допустимо
+     */
+    private static final class ReadBuffer {
+        private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads;
+
+        // Возвращает число неприменённых обращений после записи (READ_BUFFER_SIZE - буфер полон)
+        int offer(Object access) {
+            long head = reads;
+            long tail = writes.get();
+            long pending = tail - head;
+            if (pending >= READ_BUFFER_SIZE) {
+                return READ_BUFFER_SIZE;
+            }
+            if (writes.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), access);
+                return (int) pending + 1;
+            }
+            return (int) pending;
+        }
+
+        // Применяет записанные обращения; вызывается под блокировкой кэша
+        void drainTo(HotLinkCache cache) {
+            long head = reads;
+            long tail = writes.get();
+            while (head < tail) {
+                int index = (int) (head & (READ_BUFFER_SIZE - 1));
+                Object access = slots.get(index);
+                if (access == null) {
+                    // Поток занял слот, но еще не записал обращение - дочитаем в следующий раз
+                    break;
+                }
+                slots.lazySet(index, null);
+                cache.applyAccess(access);
+                head++;
+            }
+            reads = head;
+        }
+    }
+
+    private final long maxWeight;
+    private final long maxWindowWeight;
+    private final long maxMainWeight;
+    private final long maxProtectedWeight;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReadBuffer[] readBuffers;
+    // Защищает очереди, частоты и изменение entries
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue[] queues = {new Queue(), new Queue(), new Queue()};
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long evictions;
+    private volatile long weight;
+
+    public HotLinkCache(long maxWeightBytes) {
+        this.maxWeight = Math.max(ENTRY_OVERHEAD_BYTES, maxWeightBytes);
+        this.maxWindowWeight = Math.max(1, maxWeight / 100);
+        this.maxMainWeight = maxWeight - maxWindowWeight;
+        this.maxProtectedWeight = maxMainWeight * 8 / 10;
+        // Оценка числа записей при среднем URL около 60 символов
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(16, maxWeight / 256)));
+
+        int stripes = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        this.readBuffers = new ReadBuffer[Math.max(1, stripes)];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    // Возвращает запись или null; обращение учитывается в частотах и порядке LRU отложенно
+    public Entry get(String code) {
+        Entry entry = entries.get(code);
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        recordAccess(entry != null ? entry : code);
+        return entry;
+    }
+
+    // Кэширует ссылку с уже созданной строкой URL
+    public void put(String code, ShortLink link, String originalUrl) {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            Entry existing = entries.get(code);
+            if (existing != null) {
+                if (existing.link == link) {
+                    return;
+                }
+                removeEntry(existing);
+            }
+            // Код, запрошенный впервые, не вытесняет записи заполненного кэша: разовые запросы не вызывают перестройку очередей
+            if (existing == null && weight >= maxMainWeight && sketch.frequency(code) < 2) {
+                return;
+            }
+            Entry entry = new Entry(code, link, originalUrl);
+            if (entry.weight > maxWeight) {
+                return;
+            }
+            entry.queue = WINDOW;
+            queues[WINDOW].addLast(entry);
+            weight += entry.weight;
+            entries.put(code, entry);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Удаляет ссылку из кэша (удаление, истечение срока, исчерпание лимита)
+    public void invalidate(String code) {
+        if (!entries.containsKey(code)) {
+            return;
+        }
+        lock.lock();
+        try {
+            Entry entry = entries.get(code);
+            if (entry != null) {
+                removeEntry(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Текущий вес записей в байтах
+    public long getWeight() {
+        return weight;
+    }
+
+    // Записывает обращение в буфер потока; наполненные буферы применяет, если блокировка свободна
+    private void recordAccess(Object access) {
+        ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (buffer.offer(access) >= READ_BUFFER_DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    // Применяет отложенное обращение: учитывает его в частотах и переставляет запись в очередях
+    private void applyAccess(Object access) {
+        if (access instanceof Entry) {
+            Entry entry = (Entry) access;
+            sketch.increment(entry.code);
+            if (entry.queue != REMOVED) {
+                onAccess(entry);
+            }
+        } else {
+            sketch.increment((String) access);
+        }
+    }
+
+    private void onAccess(Entry entry) {
+        Queue queue = queues[entry.queue];
+        queue.remove(entry);
+        if (entry.queue == PROBATION) {
+            // Повторное обращение переводит запись в protected, лишнее из protected возвращается в probation
+            entry.queue = PROTECTED;
+            queues[PROTECTED].addLast(entry);
+            while (queues[PROTECTED].weight > maxProtectedWeight && queues[PROTECTED].head != entry) {
+                Entry demoted = queues[PROTECTED].head;
+                queues[PROTECTED].remove(demoted);
+                demoted.queue = PROBATION;
+                queues[PROBATION].addLast(demoted);
+            }
+        } else {
+            queue.addLast(entry);
+        }
+    }
+
+    private void evict() {
+        // Переполнение окна переходит в основную часть; если места в ней нет, кандидат из окна
+        // соревнуется с жертвой - самой давней записью probation (или protected, если probation пуст)
+        while (queues[WINDOW].weight > maxWindowWeight) {
+            Entry candidate = queues[WINDOW].head;
+            queues[WINDOW].remove(candidate);
+            while (candidate != null && mainWeight() + candidate.weight > maxMainWeight) {
+                Entry victim = queues[PROBATION].head != null ? queues[PROBATION].head : queues[PROTECTED].head;
+                if (victim != null && sketch.frequency(candidate.code) > sketch.frequency(victim.code)) {
+                    evictEntry(victim);
+                } else {
+                    candidate.queue = REMOVED;
+                    entries.remove(candidate.code, candidate);
+                    weight -= candidate.weight;
+                    evictions++;
+                    candidate = null;
+                }
+            }
+            if (candidate != null) {
+                candidate.queue = PROBATION;
+                queues[PROBATION].addLast(candidate);
+            }
+        }
+    }
+
+    private long mainWeight() {
+        return queues[PROBATION].weight + queues[PROTECTED].weight;
+    }
+
+    private void evictEntry(Entry entry) {
+        removeEntry(entry);
+        evictions++;
+    }
+
+    private void removeEntry(Entry entry) {
+        queues[entry.queue].remove(entry);
+        entry.queue = REMOVED;
+        entries.remove(entry.code, entry);
+        weight -= entry.weight;
+    }
+
+    /**
+     * Count-min sketch с 4-битными счетчиками (16 в одном long) и четырьмя хешами
+     * После sampleSize увеличений все счетчики делятся пополам, чтобы старая популярность забывалась
+     */
+    private static final class FrequencySketch {
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+            this.table = new long[size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                frequency = Math.min(frequency, counter(hash, i));
+            }
+            return frequency;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(hash, i);
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int counter(int hash, int i) {
+            int index = index(hash, i);
+            int shift = shift(hash, i);
+            return (int) ((table[index] >>> shift) & 0xF);
+        }
+
+        private boolean incrementAt(int hash, int i) {
+            int index = index(hash, i);
+            int shift = shift(hash, i);
+            if (((table[index] >>> shift) & 0xF) == 0xF) {
+                return false;
+            }
+            table[index] += 1L << shift;
+            return true;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & mask;
+        }
+
+        private static int shift(int hash, int i) {
+            return (((hash >>> (i * 8)) & 3) * 4 + i) * 4 % 64;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
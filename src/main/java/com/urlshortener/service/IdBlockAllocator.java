@@ -0,0 +1,82 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Распределитель блоков идентификаторов
+ * Хранит в файле следующий свободный идентификатор; каждый процесс резервирует себе блок
+ * идентификаторов под FileLock и дальше выдает их из памяти, не обращаясь к файлу
+ */
+public class IdBlockAllocator {
+    // Блокировка внутри JVM: FileLock не защищает от параллельных каналов одного процесса
+    private static final Object FILE_MONITOR = new Object();
+
+    private final Config config = Config.getInstance();
+    private final Path allocatorPath;
+    private final int blockSize;
+
+    public IdBlockAllocator(int blockSize) {
+        Path storagePath = Paths.get(config.getStorageDirectory());
+        this.allocatorPath = storagePath.resolve(config.getIdAllocatorFile());
+        this.blockSize = blockSize;
+
+        // Создаем директорию, если её нет
+        try {
+            Files.createDirectories(storagePath);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать директорию для хранения данных: " + e.getMessage(), e);
+        }
+    }
+
+    // Резервирует блок [start, start + blockSize) и возвращает его начало
+    public long allocateBlock() {
+        synchronized (FILE_MONITOR) {
+            try (FileChannel channel = FileChannel.open(allocatorPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                try (FileLock lock = channel.lock()) {
+                    long start = readNextId(channel);
+                    ByteBuffer buffer = StandardCharsets.UTF_8.encode(Long.toString(start + blockSize));
+                    channel.truncate(0);
+                    channel.position(0);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                    return start;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при резервировании блока идентификаторов: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private long readNextId(FileChannel channel) throws IOException {
+        if (channel.size() == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // читаем файл целиком
+        }
+        buffer.flip();
+        String content = StandardCharsets.UTF_8.decode(buffer).toString().trim();
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            throw new IOException("Поврежден файл распределителя идентификаторов: " + content, e);
+        }
+    }
+}
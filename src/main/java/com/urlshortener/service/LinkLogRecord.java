@@ -0,0 +1,67 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+/**
+ * Запись журнала изменений (write-ahead log) для хранилища ссылок
+ * Каждая запись описывает одно изменение и хранит абсолютное значение,
+ * поэтому повторное применение записи не меняет результат
+ */
+public class LinkLogRecord {
+    public enum Operation {
+        CREATE,
+        CLICK,
+        DEACTIVATE,
+        DELETE
+    }
+
+    private Operation op;
+    private String code;
+    private ShortLink link;
+    private Integer clickCount;
+
+    private LinkLogRecord(Operation op, String code) {
+        this.op = op;
+        this.code = code;
+    }
+
+    // Создание новой ссылки
+    public static LinkLogRecord create(ShortLink link) {
+        LinkLogRecord record = new LinkLogRecord(Operation.CREATE, link.getShortCode());
+        record.link = link;
+        return record;
+    }
+
+    // Переход по ссылке (сохраняется итоговое количество кликов)
+    public static LinkLogRecord click(String code, int clickCount) {
+        LinkLogRecord record = new LinkLogRecord(Operation.CLICK, code);
+        record.clickCount = clickCount;
+        return record;
+    }
+
+    // Деактивация ссылки (истек срок или исчерпан лимит)
+    public static LinkLogRecord deactivate(String code) {
+        return new LinkLogRecord(Operation.DEACTIVATE, code);
+    }
+
+    // Удаление ссылки
+    public static LinkLogRecord delete(String code) {
+        return new LinkLogRecord(Operation.DELETE, code);
+    }
+
+    public Operation getOp() {
+        return op;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public ShortLink getLink() {
+        return link;
+    }
+
+    public Integer getClickCount() {
+        return clickCount;
+    }
+}
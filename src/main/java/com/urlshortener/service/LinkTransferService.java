@@ -0,0 +1,185 @@
+package com.urlshortener.service;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.urlshortener.model.ShortLink;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт и экспорт ссылок в формате NDJSON (одна ссылка - одна строка)
+ * Записи читаются по строкам и пишутся через JsonWriter по одной, в памяти держится только текущая пачка
+ * При импорте URL пачки проверяются параллельно, как при создании ссылки, затем пачка добавляется в хранилище
+ * одной записью журнала; строка, которую не удалось разобрать, считается отклоненной и не прерывает импорт
+ */
+public class LinkTransferService {
+    private static final int BATCH_SIZE = 10000;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private final UrlShortenerService urlShortenerService;
+    private final ShortLinkAdapter linkAdapter = new ShortLinkAdapter();
+
+    public LinkTransferService(UrlShortenerService urlShortenerService) {
+        this.urlShortenerService = urlShortenerService;
+    }
+
+    // Итоги импорта или экспорта
+    public static class Result {
+        private long processed;
+        private long imported;
+        private long rejected;
+        private long duplicates;
+        private long elapsedMillis;
+
+        public long getProcessed() {
+            return processed;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        // Записей в секунду
+        public long getThroughput() {
+            return elapsedMillis > 0 ? processed * 1000 / elapsedMillis : processed;
+        }
+    }
+
+    // Выгружает все ссылки в файл
+    public Result exportTo(Path path) throws IOException {
+        Result result = new Result();
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress("Экспортировано", start);
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+            for (ShortLink link : urlShortenerService.allLinks()) {
+                JsonWriter jsonWriter = new JsonWriter(writer);
+                linkAdapter.write(jsonWriter, link);
+                jsonWriter.flush();
+                writer.write('\n');
+                result.processed++;
+                progress.report(result.processed);
+            }
+        }
+        result.imported = result.processed;
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    // Загружает ссылки из файла; ссылки с занятым кодом или уже сокращенным у владельца URL пропускаются
+    public Result importFrom(Path path) throws IOException {
+        Result result = new Result();
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress("Импортировано", start);
+        try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(path, StandardCharsets.UTF_8),
+                1 << 16)) {
+            List<ShortLink> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ShortLink link = parseLink(line);
+                if (link == null) {
+                    result.processed++;
+                    result.rejected++;
+                    continue;
+                }
+                batch.add(link);
+                if (batch.size() == BATCH_SIZE) {
+                    importBatch(batch, result);
+                    progress.report(result.processed);
+                    batch.clear();
+                }
+            }
+            importBatch(batch, result);
+        }
+        // После импорта журнал может быть очень большим - сразу сжимаем его в снимок
+        if (result.imported > 0) {
+            urlShortenerService.compactStorage();
+        }
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    private void importBatch(List<ShortLink> batch, Result result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ShortLink> valid = batch.parallelStream()
+                .filter(LinkTransferService::isValid)
+                .collect(Collectors.toList());
+        int imported = urlShortenerService.importLinks(valid);
+
+        result.processed += batch.size();
+        result.rejected += batch.size() - valid.size();
+        result.duplicates += valid.size() - imported;
+        result.imported += imported;
+    }
+
+    // Разбирает строку NDJSON; null - строка не является ссылкой
+    private ShortLink parseLink(String line) {
+        try {
+            return linkAdapter.fromJson(line);
+        } catch (IOException | JsonParseException | IllegalStateException | IllegalArgumentException
+                | DateTimeException e) {
+            return null;
+        }
+    }
+
+    // URL проверяется так же, как при создании ссылки: допускаются только http и https
+    private static boolean isValid(ShortLink link) {
+        if (link == null || link.getUserNickname() == null || link.getUserNickname().isBlank()) {
+            return false;
+        }
+        try {
+            UrlShortenerService.normalizeUrl(link.getOriginalUrl());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Печатает прогресс не чаще раза в секунду
+    private static class Progress {
+        private final String label;
+        private final long start;
+        private long lastReport;
+
+        Progress(String label, long start) {
+            this.label = label;
+            this.start = start;
+            this.lastReport = start;
+        }
+
+        void report(long count) {
+            long now = System.currentTimeMillis();
+            if (now - lastReport < PROGRESS_INTERVAL_MS) {
+                return;
+            }
+            lastReport = now;
+            System.out.printf("%s: %d (%d записей/с)%n", label, count, count * 1000 / Math.max(1, now - start));
+        }
+    }
+}
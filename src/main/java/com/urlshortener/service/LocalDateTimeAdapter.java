@@ -33,12 +33,15 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
             in.nextNull();
             return null;
         }
-        String dateTimeString = in.nextString();
-        // Пробуем сначала ISO формат, потом простой формат
-        try {
+        return parse(in.nextString());
+    }
+
+    // Разбирает время в ISO формате или в простом формате yyyy-MM-dd HH:mm
+    // Формат определяется по разделителю даты и времени, без перехвата исключения
+    public static LocalDateTime parse(String dateTimeString) {
+        if (dateTimeString.length() > 10 && dateTimeString.charAt(10) == 'T') {
             return LocalDateTime.parse(dateTimeString, ISO_FORMATTER);
-        } catch (Exception e) {
-            return LocalDateTime.parse(dateTimeString, FORMATTER);
         }
+        return LocalDateTime.parse(dateTimeString, FORMATTER);
     }
 }
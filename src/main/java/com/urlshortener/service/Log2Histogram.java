@@ -0,0 +1,62 @@
+package com.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма неотрицательных значений с корзинами по степеням двойки
+ * Запись - без блокировок; перцентиль возвращается как верхняя граница корзины (точность до 2 раз)
+ */
+class Log2Histogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(2); // [0] - количество, [1] - сумма
+    private volatile long max;
+
+    void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        totals.incrementAndGet(0);
+        totals.addAndGet(1, value);
+        if (value > max) {
+            synchronized (this) {
+                max = Math.max(max, value);
+            }
+        }
+    }
+
+    long getCount() {
+        return totals.get(0);
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    double getMean() {
+        long count = totals.get(0);
+        return count == 0 ? 0 : (double) totals.get(1) / count;
+    }
+
+    // Значение, не меньше которого percentile процентов записей (верхняя граница корзины, не больше максимума)
+    long getPercentile(double percentile) {
+        long count = totals.get(0);
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(max, bucket == 0 ? 0 : (1L << bucket) - 1);
+            }
+        }
+        return max;
+    }
+
+    // 0 -> 0, 1 -> 1, 2..3 -> 2, 4..7 -> 3, ...
+    private static int bucketOf(long value) {
+        return BUCKETS - Long.numberOfLeadingZeros(value);
+    }
+}
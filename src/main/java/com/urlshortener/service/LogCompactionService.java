@@ -0,0 +1,82 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис фонового сжатия журнала изменений
+ * Периодически записывает снимок состояния и обрезает журнал за ним,
+ * чтобы журнал не рос бесконечно и загрузка при старте оставалась быстрой
+ */
+public class LogCompactionService {
+    private final UrlShortenerService urlShortenerService;
+    private final ScheduledExecutorService scheduler;
+    private final Config config = Config.getInstance();
+
+    // Метрики последнего снимка
+    private volatile long lastSnapshotDurationMillis;
+    private volatile long lastSnapshotSizeBytes;
+    private volatile long lastCompactedLogSizeBytes;
+    private volatile long snapshotCount;
+
+    public LogCompactionService(UrlShortenerService urlShortenerService) {
+        this.urlShortenerService = urlShortenerService;
+        this.scheduler = Executors.newScheduledThreadPool(1);
+    }
+
+    // Запускает периодическое сжатие журнала (в режиме журнала или с бинарным хранилищем)
+    public void start() {
+        if (!urlShortenerService.isStorageCompactable() || !config.isCompactionEnabled()) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(
+                this::compactIfNeeded,
+                0,
+                config.getCompactionIntervalMinutes(),
+                TimeUnit.MINUTES);
+    }
+
+    // Graceful shutdown
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    public long getLastSnapshotDurationMillis() {
+        return lastSnapshotDurationMillis;
+    }
+
+    public long getLastSnapshotSizeBytes() {
+        return lastSnapshotSizeBytes;
+    }
+
+    public long getLastCompactedLogSizeBytes() {
+        return lastCompactedLogSizeBytes;
+    }
+
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    // Делает снимок, только если журнал вырос больше порога
+    private void compactIfNeeded() {
+        try {
+            long logSize = urlShortenerService.getStorageLogSize();
+            if (logSize < config.getCompactionMinLogSizeBytes()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            long snapshotSize = urlShortenerService.compactStorage();
+
+            lastSnapshotDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastSnapshotSizeBytes = snapshotSize;
+            lastCompactedLogSizeBytes = logSize;
+            snapshotCount++;
+        } catch (Exception e) {
+            System.err.println("Ошибка при сжатии журнала изменений: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,750 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Бинарное хранилище ссылок в файлах, отображенных в память (FileChannel.map)
+ * user-links.bin - заголовок и записи фиксированной длины (RECORD_BYTES):
+ * упакованный код, ссылки на URL и никнейм в области строк, клики, лимит,
+ * createdAt/expiresAt в миллисекундах эпохи (UTC), флаги и поколение счетчика кликов
+ * user-links.strings.N - область строк переменной длины ([длина][UTF-8 байты]), N - поколение из заголовка
+ * Клики и деактивация записываются на месте, новые ссылки дописываются в конец,
+ * удаленные записи помечаются флагом и вычищаются при перезаписи (rewrite, compact)
+ * Загрузка - отображение файлов и проход по записям, без разбора текста
+ *
+ * Файлы могут использовать несколько процессов одновременно:
+ * - заголовок блокируется разделяемо для изменений на месте и монопольно для добавления, удаления и перезаписи;
+ * - запись ссылки блокируется отдельно (FileChannel.lock(position, RECORD_BYTES)), поэтому процессы
+ *   мешают друг другу только на одной и той же ссылке;
+ * - счетчик кликов пишется через сравнение поколения: если с прошлой записи этого процесса счетчик
+ *   изменил другой процесс, клики этого процесса добавляются к сохраненному значению, а не затирают его;
+ * - перед подменой файла при перезаписи в старом заголовке ставится отметка, по которой
+ *   остальные процессы переоткрывают хранилище;
+ * - каждое применение изменений увеличивает счетчик изменений в заголовке обычной записью в канал
+ *   (изменения через отображение не видны WatchService), по нему readChanges находит чужие изменения
+ */
+class MappedLinkStore {
+    private static final int MAGIC = 0x554C4231; // "ULB1"
+    private static final int VERSION = 1;
+
+    // Блокировка внутри JVM: FileLock не защищает от параллельных каналов одного процесса
+    private static final Object FILE_MONITOR = new Object();
+
+    // Заголовок файла записей
+    private static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_COUNT = 8;
+    private static final int H_STRINGS_SIZE = 16;
+    private static final int H_GARBAGE_BYTES = 24;
+    private static final int H_GENERATION = 32;
+    // Файл подменен перезаписью, нужно открыть новый
+    private static final int H_REPLACED = 40;
+    // Счетчик применений изменений (всеми процессами)
+    private static final int H_CHANGES = 48;
+    // Область за концом файла, блокируемая на время увеличения счетчика изменений
+    private static final long CHANGES_LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    // Запись ссылки
+    private static final int RECORD_BYTES = 64;
+    private static final int R_CODE = 0;
+    private static final int R_URL = 8;
+    private static final int R_OWNER = 16;
+    private static final int R_CLICKS = 24;
+    private static final int R_LIMIT = 28;
+    private static final int R_CREATED = 32;
+    private static final int R_EXPIRES = 40;
+    private static final int R_FLAGS = 48;
+    private static final int R_CLICKS_VERSION = 56;
+
+    private static final byte FLAG_ACTIVE = 1;
+    private static final byte FLAG_DELETED = 2;
+    // Код не упаковывается в long и лежит в области строк, R_CODE хранит ссылку на него
+    private static final byte FLAG_CODE_IN_STRINGS = 4;
+
+    private static final int NO_LIMIT = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final int INITIAL_STRINGS_BYTES = 64 * 1024;
+
+    private final Path storagePath;
+    private final Path recordsPath;
+    private final String stringsFile;
+    private final ShortCodePacker packer;
+
+    private FileChannel recordsChannel;
+    private FileChannel stringsChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer strings;
+    private int recordCount;
+    private long stringsSize;
+    private long garbageBytes;
+    private long generation;
+
+    // Номер записи по коду и ссылка на никнейм в области строк (никнейм пишется один раз)
+    private final Map<String, Integer> slotsByCode = new HashMap<>();
+    private final Map<String, Long> ownerRefs = new HashMap<>();
+    // Сколько записей файла уже учтено в slotsByCode (остальные дописаны другими процессами)
+    private int indexedCount;
+
+    // Счетчик кликов и его поколение по номеру записи, какими их последний раз видел или записал этот процесс
+    private int[] knownClicks = new int[0];
+    private long[] knownVersions = new long[0];
+    // Флаги записи, какими их последний раз видел или записал этот процесс
+    private byte[] knownFlags = new byte[0];
+    // Значение счетчика изменений, до которого чужие изменения уже прочитаны
+    private long seenChanges;
+    // Записи, дописанные другими процессами и еще не отданные через readChanges
+    private final List<Integer> unseenSlots = new ArrayList<>();
+    // Коды, пропавшие из файла после перезаписи другим процессом, еще не отданные через readChanges
+    private final List<String> removedCodes = new ArrayList<>();
+    private boolean loaded;
+    // Известные счетчики до переоткрытия после чужой перезаписи: переносятся по коду на новые номера записей
+    private Map<String, Integer> carriedSlots;
+    private int[] carriedClicks;
+    private long[] carriedVersions;
+    private byte[] carriedFlags;
+
+    MappedLinkStore(Path storagePath, String recordsFile, String stringsFile, ShortCodePacker packer) {
+        this.storagePath = storagePath;
+        this.recordsPath = storagePath.resolve(recordsFile);
+        this.stringsFile = stringsFile;
+        this.packer = packer;
+    }
+
+    boolean exists() {
+        return Files.exists(recordsPath);
+    }
+
+    // Отображает файлы в память и строит ссылки nickname -> Map<URL, ShortLink>
+    synchronized Map<String, Map<String, ShortLink>> load() {
+        Map<String, Map<String, ShortLink>> userLinks = new ConcurrentHashMap<>();
+        synchronized (FILE_MONITOR) {
+            try (FileLock header = lockHeader(true)) {
+                Map<Long, String> owners = new HashMap<>();
+                for (int slot = 0; slot < recordCount; slot++) {
+                    if (isDeleted(slot)) {
+                        continue;
+                    }
+                    ShortLink link = readLink(slot, owners);
+                    ownerRefs.put(link.getUserNickname(), records.getLong(recordOffset(slot) + R_OWNER));
+                    userLinks.computeIfAbsent(link.getUserNickname(), k -> new HashMap<>())
+                            .put(link.getOriginalUrl(), link);
+                }
+                unseenSlots.clear();
+                removedCodes.clear();
+                seenChanges = records.getLong(H_CHANGES);
+                loaded = true;
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при загрузке бинарного хранилища: " + e.getMessage(), e);
+            }
+        }
+        return userLinks;
+    }
+
+    // Применяет записи журнала к отображенным файлам
+    // Добавление и удаление всегда сбрасываются на диск в порядке строки -> записи -> заголовок, чтобы после сбоя
+    // заголовок не ссылался на недописанные записи; клики и деактивация сбрасываются через force (политика fsync)
+    // Возвращает клики других процессов, добавленные к сохраненным счетчикам: код -> количество
+    // Коды CREATE, уже занятые живой записью другого процесса, не записываются и добавляются в rejectedCodes;
+    // остальные записи с этими кодами тоже пропускаются, чтобы не изменить чужую ссылку
+    synchronized Map<String, Integer> apply(Iterable<LinkLogRecord> logRecords, Set<String> rejectedCodes) {
+        // Клики и деактивация меняют записи на месте и не мешают друг другу, добавление и удаление меняют заголовок
+        boolean exclusive = false;
+        for (LinkLogRecord record : logRecords) {
+            exclusive |= record.getOp() == LinkLogRecord.Operation.CREATE
+                    || record.getOp() == LinkLogRecord.Operation.DELETE;
+        }
+
+        Map<String, Integer> foreignClicks = new HashMap<>();
+        synchronized (FILE_MONITOR) {
+            try (FileLock header = lockHeader(!exclusive)) {
+                for (LinkLogRecord record : logRecords) {
+                    if (record.getOp() == LinkLogRecord.Operation.CREATE) {
+                        if (!createLink(record.getLink())) {
+                            rejectedCodes.add(record.getCode());
+                        }
+                        continue;
+                    }
+                    Integer slot = slotsByCode.get(record.getCode());
+                    if (slot == null || rejectedCodes.contains(record.getCode())) {
+                        continue;
+                    }
+                    try (FileLock lock = recordsChannel.lock(recordOffset(slot), RECORD_BYTES, false)) {
+                        if (isDeleted(slot)) {
+                            // Ссылку удалил другой процесс
+                            slotsByCode.remove(record.getCode());
+                            continue;
+                        }
+                        switch (record.getOp()) {
+                            case CLICK: {
+                                int saved = writeClicks(slot, record.getClickCount());
+                                if (saved != record.getClickCount()) {
+                                    foreignClicks.merge(record.getCode(), saved - record.getClickCount(), Integer::sum);
+                                }
+                                break;
+                            }
+                            case DEACTIVATE: {
+                                int offset = recordOffset(slot) + R_FLAGS;
+                                records.put(offset, (byte) (records.get(offset) & ~FLAG_ACTIVE));
+                                knownFlags[slot] = records.get(offset);
+                                break;
+                            }
+                            case DELETE:
+                                deleteSlot(slot);
+                                slotsByCode.remove(record.getCode());
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+                if (exclusive) {
+                    flush();
+                }
+                countChange();
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при записи в бинарное хранилище: " + e.getMessage(), e);
+            }
+        }
+        return foreignClicks;
+    }
+
+    // Перезаписывает хранилище набором ссылок без удаленных записей, возвращает размер файлов в байтах
+    // Хранилище заменяется переданным состоянием целиком, изменения других процессов, которых в нем нет, теряются
+    synchronized long rewrite(Map<String, Map<String, ShortLink>> userLinks) {
+        return replace(target -> {
+            for (Map<String, ShortLink> userMap : userLinks.values()) {
+                for (ShortLink link : userMap.values()) {
+                    target.writeLink(link);
+                }
+            }
+        }, false);
+    }
+
+    // Перезаписывает хранилище без удаленных записей, копируя живые записи из текущего файла,
+    // возвращает размер файлов в байтах
+    // Состояние берется с диска, поэтому ссылки и клики других процессов сохраняются
+    synchronized long compact() {
+        return replace(target -> {
+            Map<Long, Long> ownerCopies = new HashMap<>();
+            for (int slot = 0; slot < recordCount; slot++) {
+                if (!isDeleted(slot)) {
+                    target.copyRecord(this, slot, ownerCopies);
+                }
+            }
+        }, true);
+    }
+
+    // Собирает изменения, сделанные другими процессами с прошлого вызова:
+    // дописанные ссылки, удаления, деактивации и клики (в addedClicks - сколько добавить к счетчику в памяти)
+    synchronized StorageChanges readChanges() {
+        StorageChanges changes = new StorageChanges();
+        synchronized (FILE_MONITOR) {
+            try (FileLock header = lockHeader(true)) {
+                Map<Long, String> owners = new HashMap<>();
+                for (String code : removedCodes) {
+                    changes.getRecords().add(LinkLogRecord.delete(code));
+                }
+                removedCodes.clear();
+                for (int slot : unseenSlots) {
+                    if (isDeleted(slot)) {
+                        continue;
+                    }
+                    // Ссылка отдается в текущем состоянии, поэтому известное состояние записи обновляется
+                    int base = recordOffset(slot);
+                    knownFlags[slot] = records.get(base + R_FLAGS);
+                    knownVersions[slot] = records.getLong(base + R_CLICKS_VERSION);
+                    ShortLink link = readLink(slot, owners);
+                    knownClicks[slot] = link.getClickCount();
+                    changes.getRecords().add(LinkLogRecord.create(link));
+                }
+                unseenSlots.clear();
+
+                // Записи на месте проверяются, только если кто-то применял изменения после прошлой проверки
+                long changeCount = records.getLong(H_CHANGES);
+                if (changeCount != seenChanges) {
+                    scanChangedRecords(changes);
+                    seenChanges = changeCount;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при чтении бинарного хранилища: " + e.getMessage(), e);
+            }
+        }
+        return changes;
+    }
+
+    // Сбрасывает измененные страницы отображенных файлов на диск
+    synchronized void force() {
+        if (records != null) {
+            strings.force();
+            records.force();
+        }
+    }
+
+    // Байт, занятых удаленными записями и устаревшими строками (освобождаются при перезаписи)
+    synchronized long getGarbageBytes() {
+        return records != null ? records.getLong(H_GARBAGE_BYTES) : garbageBytes;
+    }
+
+    synchronized void close() throws IOException {
+        if (recordsChannel != null) {
+            recordsChannel.close();
+            stringsChannel.close();
+        }
+        recordsChannel = null;
+        stringsChannel = null;
+        records = null;
+        strings = null;
+    }
+
+    private interface Filler {
+        void fill(MappedLinkStore target) throws IOException;
+    }
+
+    // Пишет новое поколение хранилища и подменяет им текущее
+    // Новая область строк пишется в файл следующего поколения, затем атомарно подменяется файл записей;
+    // старый файл до подмены помечается, и процессы, которые держат его открытым, переоткрывают хранилище
+    private long replace(Filler filler, boolean keepKnownClicks) {
+        Path tempRecordsPath = recordsPath.resolveSibling(recordsPath.getFileName() + ".tmp");
+        synchronized (FILE_MONITOR) {
+            try {
+                try (FileLock header = lockHeader(false)) {
+                    Path oldStringsPath = stringsPath(generation);
+                    long nextGeneration = generation + 1;
+                    Files.deleteIfExists(stringsPath(nextGeneration));
+                    Files.deleteIfExists(tempRecordsPath);
+
+                    MappedLinkStore target = new MappedLinkStore(storagePath, tempRecordsPath.getFileName().toString(),
+                            stringsFile, packer);
+                    target.generation = nextGeneration;
+                    target.open();
+                    filler.fill(target);
+                    target.flush();
+                    target.close();
+
+                    records.putInt(H_REPLACED, 1);
+                    records.force();
+                    Files.move(tempRecordsPath, recordsPath, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    if (!oldStringsPath.equals(stringsPath(nextGeneration))) {
+                        Files.deleteIfExists(oldStringsPath);
+                    }
+                }
+                reopen(keepKnownClicks);
+                try (FileLock header = lockHeader(true)) {
+                    return Files.size(recordsPath) + Files.size(stringsPath(generation));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при перезаписи бинарного хранилища: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Сравнивает записи с тем, какими их последний раз видел этот процесс
+    // Поколение счетчика читается раньше самого счетчика: процесс-писатель меняет их в обратном порядке
+    private void scanChangedRecords(StorageChanges changes) {
+        for (int slot = 0; slot < indexedCount; slot++) {
+            if ((knownFlags[slot] & FLAG_DELETED) != 0) {
+                continue;
+            }
+            int base = recordOffset(slot);
+            byte flags = records.get(base + R_FLAGS);
+            long version = records.getLong(base + R_CLICKS_VERSION);
+            int clicks = records.getInt(base + R_CLICKS);
+            if (flags == knownFlags[slot] && version == knownVersions[slot]) {
+                continue;
+            }
+
+            String code = readCode(slot);
+            if ((flags & FLAG_DELETED) != 0) {
+                changes.getRecords().add(LinkLogRecord.delete(code));
+                slotsByCode.remove(code);
+            } else {
+                if (version != knownVersions[slot]) {
+                    changes.getAddedClicks().merge(code, clicks - knownClicks[slot], Integer::sum);
+                    knownClicks[slot] = clicks;
+                    knownVersions[slot] = version;
+                }
+                if ((flags & FLAG_ACTIVE) == 0 && (knownFlags[slot] & FLAG_ACTIVE) != 0) {
+                    changes.getRecords().add(LinkLogRecord.deactivate(code));
+                }
+            }
+            knownFlags[slot] = flags;
+        }
+    }
+
+    // Увеличивает счетчик изменений записью в канал, чтобы изменение файла увидели наблюдатели других процессов
+    // Если до увеличения счетчик совпадал с прочитанным, все изменения до этого момента уже известны
+    private void countChange() throws IOException {
+        try (FileLock lock = recordsChannel.lock(CHANGES_LOCK_POSITION, 1, false)) {
+            long current = records.getLong(H_CHANGES);
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES).order(records.order());
+            value.putLong(0, current + 1);
+            recordsChannel.write(value, H_CHANGES);
+            if (current == seenChanges) {
+                seenChanges = current + 1;
+            }
+        }
+    }
+
+    // Блокирует заголовок актуального файла и дочитывает записи, добавленные другими процессами
+    // Если файл был подменен перезаписью, хранилище переоткрывается
+    private FileLock lockHeader(boolean shared) throws IOException {
+        while (true) {
+            open();
+            FileLock lock = recordsChannel.lock(0, HEADER_BYTES, shared);
+            if (records.getInt(H_REPLACED) == 0) {
+                readHeader();
+                indexNewRecords();
+                return lock;
+            }
+            lock.release();
+            reopen(true);
+        }
+    }
+
+    // Закрывает подмененный файл; известные счетчики при необходимости переносятся по кодам
+    private void reopen(boolean keepKnownClicks) throws IOException {
+        if (keepKnownClicks) {
+            carriedSlots = new HashMap<>(slotsByCode);
+            carriedClicks = knownClicks;
+            carriedVersions = knownVersions;
+            carriedFlags = knownFlags;
+            // Еще не отданные ссылки не переносятся: в новом файле они найдутся заново как дописанные
+            for (int slot : unseenSlots) {
+                carriedSlots.values().remove(slot);
+            }
+        }
+        unseenSlots.clear();
+        // Счетчик изменений нового файла начинается заново, поэтому первая проверка просматривает все записи
+        seenChanges = -1;
+        close();
+        slotsByCode.clear();
+        ownerRefs.clear();
+        indexedCount = 0;
+        knownClicks = new int[0];
+        knownVersions = new long[0];
+        knownFlags = new byte[0];
+    }
+
+    private void open() throws IOException {
+        if (recordsChannel != null) {
+            return;
+        }
+        boolean created = !Files.exists(recordsPath);
+        recordsChannel = FileChannel.open(recordsPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long recordsBytes = Math.max(recordsChannel.size(), HEADER_BYTES + (long) INITIAL_RECORDS * RECORD_BYTES);
+        records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, recordsBytes);
+
+        if (created) {
+            recordCount = 0;
+            stringsSize = 0;
+            garbageBytes = 0;
+            writeHeader();
+        } else {
+            if (records.getInt(H_MAGIC) != MAGIC || records.getInt(H_VERSION) != VERSION) {
+                throw new IOException("Неизвестный формат файла " + recordsPath);
+            }
+            readHeader();
+        }
+
+        stringsChannel = FileChannel.open(stringsPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long stringsBytes = Math.max(stringsChannel.size(), Math.max(stringsSize, INITIAL_STRINGS_BYTES));
+        strings = stringsChannel.map(FileChannel.MapMode.READ_WRITE, 0, stringsBytes);
+    }
+
+    private void readHeader() {
+        recordCount = records.getInt(H_RECORD_COUNT);
+        stringsSize = records.getLong(H_STRINGS_SIZE);
+        garbageBytes = records.getLong(H_GARBAGE_BYTES);
+        generation = records.getLong(H_GENERATION);
+    }
+
+    // Добавляет в индекс записи, которых этот процесс еще не видел (загрузка или добавление другим процессом)
+    private void indexNewRecords() throws IOException {
+        ensureRecordCapacity(recordCount);
+        ensureKnownCapacity(recordCount);
+        for (int slot = indexedCount; slot < recordCount; slot++) {
+            int base = recordOffset(slot);
+            knownFlags[slot] = records.get(base + R_FLAGS);
+            if (isDeleted(slot)) {
+                continue;
+            }
+            String code = readCode(slot);
+            slotsByCode.put(code, slot);
+            knownVersions[slot] = records.getLong(base + R_CLICKS_VERSION);
+            knownClicks[slot] = records.getInt(base + R_CLICKS);
+
+            Integer carried = carriedSlots != null ? carriedSlots.get(code) : null;
+            if (carried != null && carried < carriedClicks.length) {
+                knownClicks[slot] = carriedClicks[carried];
+                knownVersions[slot] = carriedVersions[carried];
+                knownFlags[slot] = carriedFlags[carried];
+            } else if (loaded) {
+                unseenSlots.add(slot);
+            }
+        }
+        indexedCount = recordCount;
+        if (carriedSlots != null && loaded) {
+            for (Map.Entry<String, Integer> carried : carriedSlots.entrySet()) {
+                if (!slotsByCode.containsKey(carried.getKey())
+                        && (carriedFlags[carried.getValue()] & FLAG_DELETED) == 0) {
+                    removedCodes.add(carried.getKey());
+                }
+            }
+        }
+        carriedSlots = null;
+        carriedClicks = null;
+        carriedVersions = null;
+        carriedFlags = null;
+    }
+
+    // Добавляет новую ссылку; код, занятый живой записью другого процесса, не перезаписывается - тогда false
+    private boolean createLink(ShortLink link) throws IOException {
+        Integer existing = slotsByCode.get(link.getShortCode());
+        if (existing != null && !isDeleted(existing)) {
+            return false;
+        }
+        writeLink(link);
+        return true;
+    }
+
+    // Дописывает запись ссылки в конец файла
+    private void writeLink(ShortLink link) throws IOException {
+        String code = link.getShortCode();
+        ensureRecordCapacity(recordCount + 1);
+        int slot = recordCount;
+
+        long packedCode = packer.pack(code);
+        byte flags = link.isActive() ? FLAG_ACTIVE : 0;
+        if (packedCode == ShortCodePacker.NOT_PACKED) {
+            packedCode = appendString(code);
+            flags |= FLAG_CODE_IN_STRINGS;
+        }
+        Long ownerRef = ownerRefs.get(link.getUserNickname());
+        if (ownerRef == null) {
+            ownerRef = appendString(link.getUserNickname());
+            ownerRefs.put(link.getUserNickname(), ownerRef);
+        }
+        long urlRef = appendString(link.getOriginalUrl());
+
+        int base = recordOffset(slot);
+        records.putLong(base + R_CODE, packedCode);
+        records.putLong(base + R_URL, urlRef);
+        records.putLong(base + R_OWNER, ownerRef);
+        records.putInt(base + R_CLICKS, link.getClickCount());
+        records.putInt(base + R_LIMIT, link.getClickLimit() != null ? link.getClickLimit() : NO_LIMIT);
+        records.putLong(base + R_CREATED, toMillis(link.getCreatedAt()));
+        records.putLong(base + R_EXPIRES, toMillis(link.getExpiresAt()));
+        records.put(base + R_FLAGS, flags);
+        records.putLong(base + R_CLICKS_VERSION, 0);
+
+        recordCount++;
+        indexedCount = recordCount;
+        slotsByCode.put(code, slot);
+        ensureKnownCapacity(recordCount);
+        knownClicks[slot] = link.getClickCount();
+        knownVersions[slot] = 0;
+        knownFlags[slot] = flags;
+    }
+
+    // Копирует живую запись другого хранилища (при сжатии), строки переносятся в новую область
+    private void copyRecord(MappedLinkStore source, int sourceSlot, Map<Long, Long> ownerCopies) throws IOException {
+        ensureRecordCapacity(recordCount + 1);
+        int slot = recordCount;
+        int from = source.recordOffset(sourceSlot);
+        int base = recordOffset(slot);
+
+        byte flags = source.records.get(from + R_FLAGS);
+        long codeValue = source.records.getLong(from + R_CODE);
+        if ((flags & FLAG_CODE_IN_STRINGS) != 0) {
+            codeValue = appendString(source.readString(codeValue));
+        }
+        long sourceOwner = source.records.getLong(from + R_OWNER);
+        Long ownerRef = ownerCopies.get(sourceOwner);
+        if (ownerRef == null) {
+            ownerRef = appendString(source.readString(sourceOwner));
+            ownerCopies.put(sourceOwner, ownerRef);
+        }
+
+        records.putLong(base + R_CODE, codeValue);
+        records.putLong(base + R_URL, appendString(source.readString(source.records.getLong(from + R_URL))));
+        records.putLong(base + R_OWNER, ownerRef);
+        records.putInt(base + R_CLICKS, source.records.getInt(from + R_CLICKS));
+        records.putInt(base + R_LIMIT, source.records.getInt(from + R_LIMIT));
+        records.putLong(base + R_CREATED, source.records.getLong(from + R_CREATED));
+        records.putLong(base + R_EXPIRES, source.records.getLong(from + R_EXPIRES));
+        records.put(base + R_FLAGS, flags);
+        records.putLong(base + R_CLICKS_VERSION, source.records.getLong(from + R_CLICKS_VERSION));
+        recordCount++;
+    }
+
+    // Записывает счетчик кликов под блокировкой записи, возвращает сохраненное значение
+    // Если поколение счетчика изменилось с прошлой записи этого процесса, счетчик менял другой процесс:
+    // к сохраненному значению добавляются только клики, сделанные здесь с тех пор
+    private int writeClicks(int slot, int clickCount) {
+        int base = recordOffset(slot);
+        long version = records.getLong(base + R_CLICKS_VERSION);
+        int saved = clickCount;
+        if (version != knownVersions[slot]) {
+            saved = records.getInt(base + R_CLICKS) + (clickCount - knownClicks[slot]);
+        }
+        records.putInt(base + R_CLICKS, saved);
+        records.putLong(base + R_CLICKS_VERSION, version + 1);
+        knownClicks[slot] = saved;
+        knownVersions[slot] = version + 1;
+        return saved;
+    }
+
+    private boolean isDeleted(int slot) {
+        return (records.get(recordOffset(slot) + R_FLAGS) & FLAG_DELETED) != 0;
+    }
+
+    private void deleteSlot(int slot) {
+        int base = recordOffset(slot);
+        records.put(base + R_FLAGS, FLAG_DELETED);
+        knownFlags[slot] = FLAG_DELETED;
+        garbageBytes += RECORD_BYTES + stringBytes(records.getLong(base + R_URL));
+    }
+
+    // Сначала на диск попадают строки и записи, затем заголовок с их количеством
+    private void flush() {
+        strings.force();
+        records.force();
+        writeHeader();
+        records.force();
+    }
+
+    private void writeHeader() {
+        records.putInt(H_MAGIC, MAGIC);
+        records.putInt(H_VERSION, VERSION);
+        records.putInt(H_RECORD_COUNT, recordCount);
+        records.putLong(H_STRINGS_SIZE, stringsSize);
+        records.putLong(H_GARBAGE_BYTES, garbageBytes);
+        records.putLong(H_GENERATION, generation);
+        records.putInt(H_REPLACED, 0);
+    }
+
+    // Собирает ссылку из записи; owners - уже прочитанные никнеймы по ссылке в области строк
+    private ShortLink readLink(int slot, Map<Long, String> owners) {
+        int base = recordOffset(slot);
+        byte flags = records.get(base + R_FLAGS);
+        int limit = records.getInt(base + R_LIMIT);
+        return ShortLink.restore(readCode(slot),
+                readString(records.getLong(base + R_URL)),
+                owners.computeIfAbsent(records.getLong(base + R_OWNER), this::readString),
+                records.getInt(base + R_CLICKS),
+                limit == NO_LIMIT ? null : limit,
+                fromMillis(records.getLong(base + R_CREATED)),
+                fromMillis(records.getLong(base + R_EXPIRES)),
+                (flags & FLAG_ACTIVE) != 0);
+    }
+
+    private String readCode(int slot) {
+        int base = recordOffset(slot);
+        long codeValue = records.getLong(base + R_CODE);
+        return (records.get(base + R_FLAGS) & FLAG_CODE_IN_STRINGS) != 0
+                ? readString(codeValue)
+                : packer.unpack(codeValue);
+    }
+
+    private long appendString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long ref = stringsSize;
+        long end = ref + Integer.BYTES + bytes.length;
+        ensureStringsCapacity(end);
+        strings.putInt((int) ref, bytes.length);
+        strings.put((int) ref + Integer.BYTES, bytes);
+        stringsSize = end;
+        return ref;
+    }
+
+    // Строки, дописанные другими процессами, могут лежать за пределами текущего отображения
+    private String readString(long ref) {
+        try {
+            ensureStringsCapacity(ref + Integer.BYTES);
+            int length = strings.getInt((int) ref);
+            ensureStringsCapacity(ref + Integer.BYTES + length);
+            byte[] bytes = new byte[length];
+            strings.get((int) ref + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении бинарного хранилища: " + e.getMessage(), e);
+        }
+    }
+
+    private int stringBytes(long ref) {
+        return Integer.BYTES + strings.getInt((int) ref);
+    }
+
+    private void ensureStringsCapacity(long needed) throws IOException {
+        if (needed > strings.capacity()) {
+            strings = stringsChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(strings.capacity(), needed));
+        }
+    }
+
+    private void ensureRecordCapacity(int count) throws IOException {
+        long needed = HEADER_BYTES + (long) count * RECORD_BYTES;
+        if (needed > records.capacity()) {
+            records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(records.capacity(), needed));
+        }
+    }
+
+    private void ensureKnownCapacity(int count) {
+        if (count > knownClicks.length) {
+            int size = Math.max(count, knownClicks.length * 2);
+            knownClicks = Arrays.copyOf(knownClicks, size);
+            knownVersions = Arrays.copyOf(knownVersions, size);
+            knownFlags = Arrays.copyOf(knownFlags, size);
+        }
+    }
+
+    // Размер отображения растет вдвое; одно отображение ограничено 2 ГБ
+    private static long grow(long current, long needed) throws IOException {
+        long size = Math.max(current * 2, needed);
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Превышен максимальный размер файла бинарного хранилища (2 ГБ)");
+        }
+        return Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private int recordOffset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private Path stringsPath(long generation) {
+        return storagePath.resolve(stringsFile + "." + generation);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : NO_TIME;
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis != NO_TIME ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC) : null;
+    }
+}
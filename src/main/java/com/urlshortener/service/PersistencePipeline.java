@@ -0,0 +1,295 @@
+package com.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Конвейер сохранения изменений с групповой фиксацией
+ * Потоки запросов ставят записи в очередь, единственный поток-писатель забирает все накопившиеся
+ * записи и сохраняет их одной операцией записи (группой), затем сбрасывает на диск по политике fsync:
+ * NONE - не сбрасывать (данные в кэше ОС), INTERVAL - не чаще раза в fsyncIntervalMillis, COMMIT - после каждой группы
+ * Future, возвращаемый submit, завершается, когда записи сохранены с учетом политики,
+ * Future, возвращаемый write, - когда записи записаны в файлы, без ожидания fsync
+ * Писатель возвращает коды CREATE, которые хранилище отклонило: код уже занят ссылкой другого процесса
+ * Записи пишутся в порядке постановки в очередь
+ */
+class PersistencePipeline implements AutoCloseable {
+    enum FsyncPolicy {
+        NONE,
+        INTERVAL,
+        COMMIT;
+
+        static FsyncPolicy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Неизвестная политика fsync: " + value + " (ожидается none, interval или commit)");
+            }
+        }
+    }
+
+    // Записи одной постановки в очередь и ее Future
+    // written - записи записаны в файлы, значение - отклоненные хранилищем коды CREATE этой постановки
+    private static final class Commit {
+        final List<LinkLogRecord> records;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final CompletableFuture<Set<String>> written = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        Commit(List<LinkLogRecord> records) {
+            this.records = records;
+        }
+    }
+
+    // Отметка остановки писателя
+    private static final Commit STOP = new Commit(List.of());
+
+    private final Function<List<LinkLogRecord>, Set<String>> writer;
+    private final Runnable sync;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalNanos;
+    private final int maxBatchRecords;
+    private final BlockingQueue<Commit> queue;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Записанные, но еще не сброшенные на диск группы (политика INTERVAL), только для потока-писателя
+    private final List<Commit> unsynced = new ArrayList<>();
+    private long lastSyncNanos = System.nanoTime();
+
+    // Метрики: записей в группе, время от постановки в очередь до сохранения (мкс), длительность fsync (мкс)
+    private final Log2Histogram batchSizes = new Log2Histogram();
+    private final Log2Histogram commitLatencies = new Log2Histogram();
+    private final Log2Histogram syncDurations = new Log2Histogram();
+
+    PersistencePipeline(Function<List<LinkLogRecord>, Set<String>> writer, Runnable sync, FsyncPolicy policy,
+                        long fsyncIntervalMillis, int maxBatchRecords, int queueCapacity) {
+        this.writer = writer;
+        this.sync = sync;
+        this.policy = policy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, fsyncIntervalMillis));
+        this.maxBatchRecords = Math.max(1, maxBatchRecords);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.thread = new Thread(this::run, "persistence-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Ставит записи в очередь на сохранение; при заполненной очереди ждет, пока писатель ее разберет
+    // Пустой список - отметка: Future завершится, когда сохранено все поставленное до нее
+    CompletableFuture<Void> submit(List<LinkLogRecord> records) {
+        return enqueue(records).future;
+    }
+
+    // Ставит записи в очередь; Future завершается, когда они записаны в файлы, и содержит коды CREATE,
+    // которые хранилище не сохранило, потому что код занят другим процессом
+    CompletableFuture<Set<String>> write(List<LinkLogRecord> records) {
+        return enqueue(records).written;
+    }
+
+    private Commit enqueue(List<LinkLogRecord> records) {
+        Commit commit = new Commit(records);
+        if (!closed) {
+            try {
+                queue.put(commit);
+                // Конвейер могли остановить, пока запись вставала в очередь - тогда писатель ее может не забрать
+                if (!closed || !queue.remove(commit)) {
+                    return commit;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                commit.future.completeExceptionally(e);
+                commit.written.completeExceptionally(e);
+                return commit;
+            }
+        }
+        // После остановки записи сохраняются сразу в вызывающем потоке
+        List<Commit> batch = new ArrayList<>(List.of(commit));
+        synchronized (this) {
+            if (writeBatch(batch) && policy != FsyncPolicy.NONE) {
+                syncBatches(batch);
+            }
+        }
+        return commit;
+    }
+
+    // Останавливает писателя: поставленные записи сохраняются и сбрасываются на диск
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    Log2Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    Log2Histogram getCommitLatencies() {
+        return commitLatencies;
+    }
+
+    Log2Histogram getSyncDurations() {
+        return syncDurations;
+    }
+
+    private void run() {
+        List<Commit> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            Commit first;
+            try {
+                first = nextCommit();
+            } catch (InterruptedException e) {
+                first = STOP;
+            }
+            if (first == null) {
+                // Истек интервал fsync, а новых записей нет
+                syncBatches(unsynced);
+                continue;
+            }
+
+            batch.clear();
+            stopping = first == STOP;
+            if (!stopping) {
+                batch.add(first);
+                int records = first.records.size();
+                Commit next;
+                while (records < maxBatchRecords && (next = queue.poll()) != null) {
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                    records += next.records.size();
+                }
+            }
+
+            synchronized (this) {
+                if (!batch.isEmpty() && writeBatch(batch)) {
+                    if (policy == FsyncPolicy.COMMIT) {
+                        syncBatches(batch);
+                    } else if (policy == FsyncPolicy.INTERVAL) {
+                        unsynced.addAll(batch);
+                        if (System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+                            syncBatches(unsynced);
+                        }
+                    }
+                }
+                if (stopping) {
+                    // Записи, успевшие встать в очередь одновременно с остановкой
+                    List<Commit> rest = new ArrayList<>();
+                    queue.drainTo(rest);
+                    rest.remove(STOP);
+                    if (!rest.isEmpty() && writeBatch(rest) && policy != FsyncPolicy.NONE) {
+                        unsynced.addAll(rest);
+                    }
+                    if (policy != FsyncPolicy.NONE) {
+                        syncBatches(unsynced);
+                    }
+                }
+            }
+        }
+    }
+
+    // Следующая постановка в очередь; null - пора сбросить на диск записанные группы (политика INTERVAL)
+    private Commit nextCommit() throws InterruptedException {
+        if (unsynced.isEmpty()) {
+            return queue.take();
+        }
+        long wait = lastSyncNanos + fsyncIntervalNanos - System.nanoTime();
+        return wait <= 0 ? null : queue.poll(wait, TimeUnit.NANOSECONDS);
+    }
+
+    // Сохраняет группу одной записью; при политике NONE сразу завершает Future
+    // При ошибке Future группы завершаются с ошибкой, возвращает false
+    private boolean writeBatch(List<Commit> batch) {
+        List<LinkLogRecord> records;
+        if (batch.size() == 1) {
+            records = batch.get(0).records;
+        } else {
+            records = new ArrayList<>();
+            for (Commit commit : batch) {
+                records.addAll(commit.records);
+            }
+        }
+        Set<String> rejected;
+        try {
+            rejected = records.isEmpty() ? Collections.emptySet() : writer.apply(records);
+        } catch (Exception e) {
+            for (Commit commit : batch) {
+                commit.future.completeExceptionally(e);
+                commit.written.completeExceptionally(e);
+            }
+            return false;
+        }
+        for (Commit commit : batch) {
+            commit.written.complete(rejectedCreates(commit, rejected));
+        }
+        batchSizes.record(records.size());
+        if (policy == FsyncPolicy.NONE) {
+            complete(batch);
+        }
+        return true;
+    }
+
+    // Отклоненные коды CREATE одной постановки
+    private static Set<String> rejectedCreates(Commit commit, Set<String> rejected) {
+        if (rejected.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> codes = new HashSet<>();
+        for (LinkLogRecord record : commit.records) {
+            if (record.getOp() == LinkLogRecord.Operation.CREATE && rejected.contains(record.getCode())) {
+                codes.add(record.getCode());
+            }
+        }
+        return codes;
+    }
+
+    // Сбрасывает записанное на диск и завершает Future групп
+    private void syncBatches(List<Commit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            sync.run();
+            syncDurations.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            complete(batch);
+        } catch (Exception e) {
+            for (Commit commit : batch) {
+                commit.future.completeExceptionally(e);
+            }
+        }
+        lastSyncNanos = System.nanoTime();
+        batch.clear();
+    }
+
+    private void complete(List<Commit> batch) {
+        long now = System.nanoTime();
+        for (Commit commit : batch) {
+            commitLatencies.record(TimeUnit.NANOSECONDS.toMicros(now - commit.enqueuedNanos));
+            commit.future.complete(null);
+        }
+    }
+}
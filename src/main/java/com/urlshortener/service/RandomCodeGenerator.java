@@ -0,0 +1,65 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Генератор случайных коротких кодов
+ * Каждый поток берет символы из своего ThreadLocalRandom и пишет их в собственный буфер,
+ * поэтому генераторы в разных потоках не конкурируют за общий SecureRandom
+ * Вероятность коллизии: при n занятых кодах длины L и алфавите из A символов кандидат занят
+ * с вероятностью n / A^L (для 1 млн ссылок, A = 62, L = 6 - около 1.8e-5), поэтому почти всегда хватает
+ * одной попытки; после MAX_ATTEMPTS неудач длина кода увеличивается на символ
+ * ThreadLocalRandom не криптостойкий - коды нельзя считать секретными
+ */
+public class RandomCodeGenerator implements CodeGenerator {
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final Config config = Config.getInstance();
+    private final Predicate<String> isTaken;
+    private final char[] alphabet;
+    private final int codeLength;
+
+    // Буфер под код, переиспользуется между вызовами в одном потоке
+    private final ThreadLocal<char[]> buffers;
+
+    // isTaken - проверяет, занят ли код другой ссылкой
+    public RandomCodeGenerator(Predicate<String> isTaken) {
+        this.isTaken = isTaken;
+        this.alphabet = config.getAlphabet().toCharArray();
+        this.codeLength = config.getCodeLength();
+        this.buffers = ThreadLocal.withInitial(() -> new char[codeLength + 1]);
+    }
+
+    // Генерирует код, не занятый другой ссылкой
+    @Override
+    public String generate(String userNickname, String originalUrl) {
+        int length = codeLength;
+        while (true) {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                String code = randomCode(length);
+                if (!isTaken.test(code)) {
+                    return code;
+                }
+            }
+            // Пространство кодов текущей длины почти заполнено
+            length++;
+        }
+    }
+
+    // Генерирует случайный код заданной длины
+    private String randomCode(int length) {
+        char[] buffer = buffers.get();
+        if (buffer.length < length) {
+            buffer = new char[length];
+            buffers.set(buffer);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < length; i++) {
+            buffer[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(buffer, 0, length);
+    }
+}
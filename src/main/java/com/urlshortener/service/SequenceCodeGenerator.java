@@ -0,0 +1,76 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+
+import java.util.function.Predicate;
+
+/**
+ * Генератор коротких кодов на основе последовательности идентификаторов
+ * Код - это идентификатор в системе счисления по алфавиту из конфига, дополненный до codeLength
+ * Идентификаторы берутся блоками из IdBlockAllocator, поэтому коды уникальны по построению
+ * и между процессами; проверка занятости нужна только для кодов, созданных раньше другим генератором
+ * Коды идут подряд, поэтому их можно перебрать - режим не подходит, если коды должны быть неугадываемыми
+ */
+public class SequenceCodeGenerator implements CodeGenerator {
+    private final Config config = Config.getInstance();
+    private final IdBlockAllocator allocator;
+    private final Predicate<String> isTaken;
+    private final char[] alphabet;
+    private final int codeLength;
+    private final int blockSize;
+
+    // Буфер под код, переиспользуется между вызовами в одном потоке
+    private final ThreadLocal<char[]> buffers;
+
+    // Текущий зарезервированный блок [nextId, blockEnd)
+    private long nextId;
+    private long blockEnd;
+
+    // isTaken - проверяет, занят ли код другой ссылкой
+    public SequenceCodeGenerator(Predicate<String> isTaken) {
+        this.blockSize = Math.max(1, config.getIdBlockSize());
+        this.allocator = new IdBlockAllocator(blockSize);
+        this.isTaken = isTaken;
+        this.alphabet = config.getAlphabet().toCharArray();
+        this.codeLength = config.getCodeLength();
+        this.buffers = ThreadLocal.withInitial(() -> new char[codeLength]);
+    }
+
+    @Override
+    public String generate(String userNickname, String originalUrl) {
+        String code;
+        do {
+            code = encode(nextId());
+        } while (isTaken.test(code));
+        return code;
+    }
+
+    private synchronized long nextId() {
+        if (nextId >= blockEnd) {
+            nextId = allocator.allocateBlock();
+            blockEnd = nextId + blockSize;
+        }
+        return nextId++;
+    }
+
+    // Переводит идентификатор в код; старшие разряды слева, короткие коды дополняются первым символом алфавита
+    // (нулевым разрядом); буфер растет, только если идентификатор не помещается в codeLength символов
+    private String encode(long id) {
+        int digits = 1;
+        for (long value = id / alphabet.length; value > 0; value /= alphabet.length) {
+            digits++;
+        }
+        int length = Math.max(codeLength, digits);
+        char[] buffer = buffers.get();
+        if (buffer.length < length) {
+            buffer = new char[length];
+            buffers.set(buffer);
+        }
+        long value = id;
+        for (int position = length - 1; position >= 0; position--) {
+            buffer[position] = alphabet[(int) (value % alphabet.length)];
+            value /= alphabet.length;
+        }
+        return new String(buffer, 0, length);
+    }
+}
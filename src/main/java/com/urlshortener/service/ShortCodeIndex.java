@@ -0,0 +1,249 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Индекс shortCode -> ShortLink на открытой адресации с примитивными ключами
+ * Код упаковывается в long (см. ShortCodePacker)
+ * Ключи и ссылки лежат в двух параллельных массивах (long[] и ShortLink[]) без узлов и упаковки,
+ * коллизии разрешаются линейным пробированием, удаление - сдвигом следующих элементов назад
+ * Коды, которые не помещаются в long (длинные или с символами не из алфавита), хранятся в обычной карте
+ * Чтение - оптимистичное через StampedLock, запись - под эксклюзивной блокировкой
+ */
+public class ShortCodeIndex {
+    private static final long EMPTY = ShortCodePacker.NOT_PACKED;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final ShortCodePacker packer;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] keys;
+    private ShortLink[] links;
+    private int packedSize;
+    private final Map<String, ShortLink> overflow = new ConcurrentHashMap<>();
+
+    public ShortCodeIndex(String alphabet, int expectedSize) {
+        this.packer = new ShortCodePacker(alphabet);
+        int tableSize = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[tableSize];
+        this.links = new ShortLink[tableSize];
+    }
+
+    public ShortLink get(String code) {
+        long key = packer.pack(code);
+        if (key == EMPTY) {
+            return overflow.get(code);
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        ShortLink link = find(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                link = find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return link;
+    }
+
+    public boolean containsKey(String code) {
+        return get(code) != null;
+    }
+
+    // Добавляет или заменяет ссылку, возвращает предыдущую
+    public ShortLink put(String code, ShortLink link) {
+        long key = packer.pack(code);
+        if (key == EMPTY) {
+            return overflow.put(code, link);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    ShortLink previous = links[slot];
+                    links[slot] = link;
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            links[slot] = link;
+            if (++packedSize > keys.length * LOAD_FACTOR) {
+                resize();
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Добавляет ссылку, только если код свободен; возвращает true, если ссылка добавлена
+    public boolean putIfAbsent(String code, ShortLink link) {
+        long key = packer.pack(code);
+        if (key == EMPTY) {
+            return overflow.putIfAbsent(code, link) == null;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            links[slot] = link;
+            if (++packedSize > keys.length * LOAD_FACTOR) {
+                resize();
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Удаляет ссылку, только если по коду лежит именно она
+    public boolean remove(String code, ShortLink link) {
+        long key = packer.pack(code);
+        if (key == EMPTY) {
+            return overflow.remove(code, link);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    if (links[slot] != link) {
+                        return false;
+                    }
+                    deleteSlot(slot);
+                    packedSize--;
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return packedSize + overflow.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Снимок всех кодов индекса
+    public List<String> codes() {
+        List<String> codes = new ArrayList<>(overflow.keySet());
+        long stamp = lock.readLock();
+        try {
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    codes.add(packer.unpack(key));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return codes;
+    }
+
+    // Память под массивы таблицы в байтах (без самих объектов ShortLink), ссылки считаются по 4 байта
+    public long getTableMemoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) keys.length * (Long.BYTES + Integer.BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Поиск без блокировки; при гонке с записью результат проверяется через validate
+    private ShortLink find(long key) {
+        long[] currentKeys = keys;
+        ShortLink[] currentLinks = links;
+        if (currentKeys.length != currentLinks.length) {
+            return null; // массивы прочитаны во время resize
+        }
+        int mask = currentKeys.length - 1;
+        int slot = slot(key, mask);
+        for (int probes = 0; probes < currentKeys.length; probes++) {
+            long current = currentKeys[slot];
+            if (current == EMPTY) {
+                return null;
+            }
+            if (current == key) {
+                return currentLinks[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    // Удаление без «надгробий»: следующие элементы цепочки сдвигаются на освободившееся место
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next], mask);
+            // Элемент можно перенести в gap, если его домашняя позиция не лежит между gap и next
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                links[gap] = links[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        links[gap] = null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        ShortLink[] oldLinks = links;
+        long[] newKeys = new long[oldKeys.length * 2];
+        ShortLink[] newLinks = new ShortLink[oldKeys.length * 2];
+        int mask = newKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (newKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newLinks[slot] = oldLinks[i];
+            }
+        }
+        keys = newKeys;
+        links = newLinks;
+    }
+
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,59 @@
+package com.urlshortener.service;
+
+/**
+ * Упаковка короткого кода в long
+ * Код записывается как число в системе счисления по основанию (размер алфавита + 1),
+ * цифра 0 не используется, поэтому коды разной длины не совпадают, а 0 означает «не упакован»
+ */
+public class ShortCodePacker {
+    public static final long NOT_PACKED = 0;
+
+    private final int[] charDigits = new int[128];
+    private final char[] alphabet;
+    private final int maxLength;
+
+    public ShortCodePacker(String alphabet) {
+        this.alphabet = alphabet.toCharArray();
+        for (int i = 0; i < this.alphabet.length; i++) {
+            if (this.alphabet[i] < charDigits.length) {
+                charDigits[this.alphabet[i]] = i + 1;
+            }
+        }
+        // Количество разрядов по основанию (A + 1), которые гарантированно помещаются в положительный long
+        int length = 0;
+        long capacity = 1;
+        while (capacity <= Long.MAX_VALUE / (this.alphabet.length + 1)) {
+            capacity *= this.alphabet.length + 1;
+            length++;
+        }
+        this.maxLength = length;
+    }
+
+    // Упаковывает код; NOT_PACKED, если код длиннее maxLength или содержит символы не из алфавита
+    public long pack(String code) {
+        int length = code.length();
+        if (length == 0 || length > maxLength) {
+            return NOT_PACKED;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            int digit = c < charDigits.length ? charDigits[c] : 0;
+            if (digit == 0) {
+                return NOT_PACKED;
+            }
+            key = key * (alphabet.length + 1) + digit;
+        }
+        return key;
+    }
+
+    public String unpack(long key) {
+        char[] buffer = new char[maxLength];
+        int position = buffer.length;
+        while (key > 0) {
+            buffer[--position] = alphabet[(int) (key % (alphabet.length + 1)) - 1];
+            key /= alphabet.length + 1;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+}
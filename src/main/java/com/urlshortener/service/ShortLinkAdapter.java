@@ -0,0 +1,113 @@
+package com.urlshortener.service;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.urlshortener.model.ShortLink;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Потоковый адаптер Gson для ShortLink без рефлексии
+ * Время записывается числом - миллисекундами эпохи (LocalDateTime трактуется как UTC)
+ * При чтении поддерживаются и старые файлы: время строкой ISO или yyyy-MM-dd HH:mm,
+ * клики безлимитной ссылки в отдельном поле unlimitedClicks
+ * URL, перенесенный в UrlArena, записывается из арены
+ */
+public class ShortLinkAdapter extends TypeAdapter<ShortLink> {
+    @Override
+    public void write(JsonWriter out, ShortLink link) throws IOException {
+        if (link == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("shortCode").value(link.getShortCode());
+        out.name("originalUrl").value(link.getOriginalUrl());
+        out.name("userNickname").value(link.getUserNickname());
+        out.name("clickCount").value(link.getClickCount());
+        if (link.getClickLimit() != null) {
+            out.name("clickLimit").value(link.getClickLimit());
+        }
+        writeTime(out, "createdAt", link.getCreatedAt());
+        writeTime(out, "expiresAt", link.getExpiresAt());
+        out.name("isActive").value(link.isActive());
+        out.endObject();
+    }
+
+    @Override
+    public ShortLink read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String shortCode = null;
+        String originalUrl = null;
+        String userNickname = null;
+        long clickCount = 0;
+        Integer clickLimit = null;
+        LocalDateTime createdAt = null;
+        LocalDateTime expiresAt = null;
+        boolean active = true;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "shortCode":
+                    shortCode = in.nextString();
+                    break;
+                case "originalUrl":
+                    originalUrl = in.nextString();
+                    break;
+                case "userNickname":
+                    userNickname = in.nextString();
+                    break;
+                case "clickCount":
+                case "unlimitedClicks":
+                    clickCount += in.nextLong();
+                    break;
+                case "clickLimit":
+                    clickLimit = in.nextInt();
+                    break;
+                case "createdAt":
+                    createdAt = readTime(in);
+                    break;
+                case "expiresAt":
+                    expiresAt = readTime(in);
+                    break;
+                case "isActive":
+                    active = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return ShortLink.restore(shortCode, originalUrl, userNickname, (int) Math.min(Integer.MAX_VALUE, clickCount),
+                clickLimit, createdAt, expiresAt, active);
+    }
+
+    private static void writeTime(JsonWriter out, String name, LocalDateTime time) throws IOException {
+        if (time != null) {
+            out.name(name).value(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private static LocalDateTime readTime(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(in.nextLong()), ZoneOffset.UTC);
+        }
+        return LocalDateTimeAdapter.parse(in.nextString());
+    }
+}
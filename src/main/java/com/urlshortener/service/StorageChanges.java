@@ -0,0 +1,32 @@
+package com.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Изменения хранилища, сделанные другими процессами
+ * records - записи в порядке применения (CLICK несет абсолютное значение счетчика, как в журнале),
+ * addedClicks - клики, которые нужно добавить к счетчикам в памяти (бинарное хранилище): код -> количество
+ */
+class StorageChanges {
+    private final List<LinkLogRecord> records = new ArrayList<>();
+    private final Map<String, Integer> addedClicks = new HashMap<>();
+
+    List<LinkLogRecord> getRecords() {
+        return records;
+    }
+
+    Map<String, Integer> getAddedClicks() {
+        return addedClicks;
+    }
+
+    boolean isEmpty() {
+        return records.isEmpty() && addedClicks.isEmpty();
+    }
+
+    int size() {
+        return records.size() + addedClicks.size();
+    }
+}
@@ -0,0 +1,581 @@
+package com.urlshortener.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.urlshortener.model.ShortLink;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Один сегмент хранилища: файл снимка и файл журнала изменений со своими блокировками
+ * Сегменты независимы, поэтому запись в один сегмент не блокирует остальные (в т.ч. в других процессах)
+ */
+class StorageShard {
+    // Блокировки внутри JVM по файлу блокировки сегмента: FileLock не защищает от параллельных каналов
+    // одного процесса, а разные сегменты друг друга не ждут
+    private static final Map<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private final Path storagePath;
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final Path compactingLogPath;
+    // Файл блокировки сегмента: под ней снимок перечитывается и перезаписывается
+    private final Path lockPath;
+    private final Object fileMonitor;
+    private final Gson gson;
+
+    // Открытый канал журнала (открывается при первой записи) и идентификатор его файла
+    private FileChannel logChannel;
+    private Object logFileKey;
+
+    // Чтение журнала за другими процессами (включается через trackForeignRecords):
+    // канал чтения, идентификатор его файла, позиция прочитанного и записи, прочитанные при дописывании
+    private boolean trackForeign;
+    private FileChannel tailChannel;
+    private Object tailFileKey;
+    private long tailOffset;
+    private final List<LinkLogRecord> pendingForeign = new ArrayList<>();
+
+    StorageShard(Path storagePath, String snapshotFile, String logFile, Gson gson) {
+        this.storagePath = storagePath;
+        this.snapshotPath = storagePath.resolve(snapshotFile);
+        this.logPath = storagePath.resolve(logFile);
+        this.compactingLogPath = storagePath.resolve(logFile + ".compacting");
+        this.lockPath = storagePath.resolve(snapshotFile + ".lock");
+        this.fileMonitor = FILE_MONITORS.computeIfAbsent(lockPath.toAbsolutePath().normalize(), k -> new Object());
+        this.gson = gson;
+    }
+
+    // Включает чтение записей, дописанных в журнал другими процессами (до загрузки)
+    void trackForeignRecords() {
+        this.trackForeign = true;
+    }
+
+    // Есть ли у сегмента данные на диске
+    boolean exists() {
+        return Files.exists(snapshotPath) || Files.exists(logPath) || Files.exists(compactingLogPath);
+    }
+
+    // Сохраняет снимок сегмента
+    // Данные пишутся во временный файл и атомарно подменяют старый, поэтому сбой записи не портит файл
+    void save(Map<String, Map<String, ShortLink>> userLinks) {
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(storagePath, snapshotPath.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+                gson.toJson(userLinks, UserLinksAdapter.TYPE, writer);
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при сохранении связей пользователей: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+
+    // Применяет записи к снимку на диске и перезаписывает его (режим без журнала)
+    // Снимок перечитывается под монопольной блокировкой сегмента, поэтому изменения других процессов не теряются
+    // savedClicks - счетчики, которые этот процесс сохранил последними: клик дописывается приростом
+    // к счетчику на диске, а не перезаписывает его
+    // Возвращает клики других процессов, которые добавились к сохраненным счетчикам: код -> количество
+    // Коды CREATE, занятые в снимке другой ссылкой, не сохраняются и добавляются в rejectedCodes
+    Map<String, Integer> merge(List<LinkLogRecord> records, Map<String, Integer> savedClicks,
+            Set<String> rejectedCodes) {
+        Map<String, Integer> foreignClicks = new HashMap<>();
+        try {
+            withShardLock(false, () -> {
+                Map<String, Map<String, ShortLink>> userLinks = readSnapshot();
+                Map<String, ShortLink> linksByCode = indexByCode(userLinks);
+                for (LinkLogRecord record : records) {
+                    // Остальные записи отклоненного кода относятся к нашей ссылке, а не к занявшей код
+                    if (!rejectedCodes.contains(record.getCode())
+                            && !mergeRecord(userLinks, linksByCode, record, savedClicks, foreignClicks)) {
+                        rejectedCodes.add(record.getCode());
+                    }
+                }
+                save(userLinks);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при сохранении связей пользователей: " + e.getMessage(), e);
+        }
+        return foreignClicks;
+    }
+
+    // Загружает снимок сегмента; если replayLog - применяет поверх него журнал изменений
+    // Совместная блокировка сегмента не дает прочитать снимок и журналы посреди сжатия в другом процессе
+    Map<String, Map<String, ShortLink>> load(boolean replayLog) {
+        try {
+            return withShardLock(true, () -> {
+                Map<String, Map<String, ShortLink>> userLinks = loadSnapshot();
+                if (replayLog) {
+                    Map<String, ShortLink> linksByCode = indexByCode(userLinks);
+                    try {
+                        // Журнал, оставшийся от прерванного сжатия, старше текущего
+                        replayLog(compactingLogPath, userLinks, linksByCode);
+                        replayLog(logPath, userLinks, linksByCode);
+                    } catch (IOException e) {
+                        System.err.println("Ошибка при чтении журнала изменений: " + e.getMessage());
+                    }
+                }
+                return userLinks;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при загрузке связей пользователей: " + e.getMessage(), e);
+        }
+    }
+
+    // Размер журнала изменений сегмента в байтах
+    long getLogSize() {
+        long size = 0;
+        try {
+            if (Files.exists(logPath)) {
+                size += Files.size(logPath);
+            }
+            if (Files.exists(compactingLogPath)) {
+                size += Files.size(compactingLogPath);
+            }
+        } catch (IOException e) {
+            System.err.println("Не удалось определить размер журнала изменений: " + e.getMessage());
+        }
+        return size;
+    }
+
+    // Сжимает журнал: текущий журнал переносится в файл сжатия, новые записи идут уже в новый файл,
+    // а новый снимок собирается с диска - из старого снимка и перенесенного журнала, поэтому в него
+    // попадают и записи других процессов; возвращает размер снимка в байтах
+    // Выполняется под монопольной блокировкой сегмента: загрузка и сжатие в другом процессе ждут его окончания
+    long compact() {
+        try {
+            return withShardLock(false, () -> {
+                rotateLog();
+                if (Files.exists(compactingLogPath)) {
+                    Map<String, Map<String, ShortLink>> userLinks = readSnapshot();
+                    replayLog(compactingLogPath, userLinks, indexByCode(userLinks));
+                    save(userLinks);
+                    Files.delete(compactingLogPath);
+                }
+                return Files.exists(snapshotPath) ? Files.size(snapshotPath) : 0L;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при сжатии журнала изменений: " + e.getMessage(), e);
+        }
+    }
+
+    // Переименовывает файлы сегмента, добавляя суффикс (используется при миграции)
+    void renameFiles(String suffix) throws IOException {
+        closeLogChannel();
+        for (Path path : List.of(snapshotPath, logPath, compactingLogPath)) {
+            if (Files.exists(path)) {
+                Files.move(path, path.resolveSibling(path.getFileName() + suffix),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    // Переносит текущий журнал в файл сжатия (если предыдущее сжатие не завершилось, журнал остается на месте)
+    private synchronized void rotateLog() throws IOException {
+        if (Files.exists(compactingLogPath) || !Files.exists(logPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            Files.move(logPath, compactingLogPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+        closeLogChannel();
+    }
+
+    // Возвращает записи, дописанные в журнал другими процессами с прошлого чтения
+    // Читаются только целые строки; если журнал перенесен при сжатии, сначала дочитывается старый файл
+    synchronized List<LinkLogRecord> readForeignRecords() {
+        List<LinkLogRecord> records = new ArrayList<>(pendingForeign);
+        pendingForeign.clear();
+        try {
+            readTail(records);
+        } catch (IOException e) {
+            System.err.println("Ошибка при чтении журнала изменений: " + e.getMessage());
+        }
+        return records;
+    }
+
+    // Дописывает записи в журнал одной операцией записи
+    synchronized void append(List<LinkLogRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (LinkLogRecord record : records) {
+            lines.append(gson.toJson(record)).append('\n');
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+
+        try {
+            boolean written = false;
+            while (!written) {
+                FileChannel channel = getLogChannel();
+                // Блокируем журнал, чтобы записи разных процессов не перемешивались
+                try (FileLock lock = channel.lock()) {
+                    // Журнал мог быть переименован при сжатии (в т.ч. другим процессом) - тогда переоткрываем
+                    if (isCurrentLogFile()) {
+                        // Чужие записи перед нашими дочитываются, а наши пропускаются при чтении журнала
+                        if (trackForeign) {
+                            readTail(pendingForeign);
+                        }
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        if (trackForeign && Objects.equals(logFileKey, tailFileKey)) {
+                            tailOffset = channel.size();
+                        }
+                        written = true;
+                    }
+                }
+                if (!written) {
+                    closeLogChannel();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при записи в журнал изменений: " + e.getMessage(), e);
+        }
+    }
+
+    // Сбрасывает дописанные записи журнала на диск
+    synchronized void force() {
+        if (logChannel == null || !logChannel.isOpen()) {
+            return;
+        }
+        try {
+            logChannel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при сбросе журнала изменений на диск: " + e.getMessage(), e);
+        }
+    }
+
+    private FileChannel getLogChannel() throws IOException {
+        if (logChannel == null || !logChannel.isOpen()) {
+            logChannel = FileChannel.open(logPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            logFileKey = Files.readAttributes(logPath, BasicFileAttributes.class).fileKey();
+        }
+        return logChannel;
+    }
+
+    // Проверяет, что открытый канал указывает на текущий файл журнала
+    private boolean isCurrentLogFile() {
+        try {
+            Object currentKey = Files.readAttributes(logPath, BasicFileAttributes.class).fileKey();
+            return currentKey == null || currentKey.equals(logFileKey);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void startTail(long offset) throws IOException {
+        closeTail();
+        tailChannel = FileChannel.open(logPath, StandardOpenOption.READ);
+        tailFileKey = Files.readAttributes(logPath, BasicFileAttributes.class).fileKey();
+        tailOffset = offset;
+    }
+
+    // Читает новые целые строки журнала; при смене файла журнала старый дочитывается до конца
+    // (после переноса в него никто не пишет) и чтение продолжается с начала нового
+    private void readTail(List<LinkLogRecord> records) throws IOException {
+        Object currentKey = Files.exists(logPath)
+                ? Files.readAttributes(logPath, BasicFileAttributes.class).fileKey()
+                : null;
+        if (tailChannel != null && !Objects.equals(currentKey, tailFileKey)) {
+            readTailLines(records);
+            closeTail();
+        }
+        if (tailChannel == null) {
+            if (currentKey == null) {
+                return;
+            }
+            startTail(0);
+        }
+        readTailLines(records);
+    }
+
+    private void readTailLines(List<LinkLogRecord> records) throws IOException {
+        long size = tailChannel.size();
+        if (size <= tailOffset) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - tailOffset, Integer.MAX_VALUE - 8));
+        while (buffer.hasRemaining() && tailChannel.read(buffer, tailOffset + buffer.position()) > 0) {
+            // читаем до конца
+        }
+        byte[] bytes = buffer.array();
+        int lineStart = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            LinkLogRecord record = parseLogRecord(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+            if (record != null) {
+                records.add(record);
+            }
+            lineStart = i + 1;
+        }
+        tailOffset += lineStart;
+    }
+
+    private void closeTail() {
+        if (tailChannel != null) {
+            try {
+                tailChannel.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка при закрытии журнала изменений: " + e.getMessage());
+            }
+            tailChannel = null;
+            tailFileKey = null;
+        }
+    }
+
+    private void closeLogChannel() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка при закрытии журнала изменений: " + e.getMessage());
+            }
+            logChannel = null;
+        }
+    }
+
+    // Загружает снимок данных с блокировкой файла
+    private Map<String, Map<String, ShortLink>> loadSnapshot() {
+        try {
+            return readSnapshot();
+        } catch (IOException e) {
+            System.err.println("Ошибка при загрузке связей пользователей: " + e.getMessage());
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    // Читает снимок; в отличие от loadSnapshot ошибка чтения не заменяется пустыми данными,
+    // чтобы снимок не был перезаписан без ссылок, которые не удалось прочитать
+    private Map<String, Map<String, ShortLink>> readSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return new ConcurrentHashMap<>();
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            // Блокируем файл для чтения
+            try (FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+                Reader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+                Map<String, Map<String, ShortLink>> loaded = gson.fromJson(reader, UserLinksAdapter.TYPE);
+                return loaded != null ? loaded : new ConcurrentHashMap<>();
+            }
+        } catch (JsonParseException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    // Применяет записи журнала к загруженному снимку
+    // Недописанная последняя запись (сбой во время записи) отбрасывается, журнал обрезается до неё
+    private void replayLog(Path logPath, Map<String, Map<String, ShortLink>> userLinks,
+            Map<String, ShortLink> linksByCode) throws IOException {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            try (FileLock lock = channel.lock()) {
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                long position = 0;
+                long validLength = 0;
+                int b;
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    LinkLogRecord record = parseLogRecord(line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                    if (record == null) {
+                        break;
+                    }
+                    applyLogRecord(userLinks, linksByCode, record);
+                    validLength = position;
+                }
+
+                if (validLength < channel.size()) {
+                    System.err.println("Журнал изменений поврежден, отброшено байт: " + (channel.size() - validLength));
+                    channel.truncate(validLength);
+                }
+                // Дальше журнал читается с места, на котором закончилась загрузка
+                if (trackForeign && logPath.equals(this.logPath)) {
+                    startTail(validLength);
+                }
+            }
+        }
+    }
+
+    private LinkLogRecord parseLogRecord(String line) {
+        try {
+            LinkLogRecord record = gson.fromJson(line, LinkLogRecord.class);
+            if (record == null || record.getOp() == null || record.getCode() == null) {
+                return null;
+            }
+            if (record.getOp() == LinkLogRecord.Operation.CREATE && record.getLink() == null) {
+                return null;
+            }
+            return record;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    // Применяет одну запись журнала к структуре nickname -> Map<URL, ShortLink>
+    private void applyLogRecord(Map<String, Map<String, ShortLink>> userLinks,
+            Map<String, ShortLink> linksByCode, LinkLogRecord record) {
+        switch (record.getOp()) {
+            case CREATE: {
+                ShortLink link = record.getLink();
+                ShortLink previous = linksByCode.put(link.getShortCode(), link);
+                if (previous != null) {
+                    removeFromUserMap(userLinks, previous);
+                }
+                userLinks.computeIfAbsent(link.getUserNickname(), k -> new HashMap<>())
+                        .put(link.getOriginalUrl(), link);
+                break;
+            }
+            case CLICK: {
+                ShortLink link = linksByCode.get(record.getCode());
+                if (link != null && record.getClickCount() != null) {
+                    link.setClickCount(record.getClickCount());
+                }
+                break;
+            }
+            case DEACTIVATE: {
+                ShortLink link = linksByCode.get(record.getCode());
+                if (link != null) {
+                    link.setActive(false);
+                }
+                break;
+            }
+            case DELETE: {
+                ShortLink link = linksByCode.remove(record.getCode());
+                if (link != null) {
+                    removeFromUserMap(userLinks, link);
+                }
+                break;
+            }
+        }
+    }
+
+    // Применяет одну запись этого процесса к снимку, перечитанному с диска
+    // Возвращает false, если CREATE не применен: код занят в снимке другой ссылкой
+    private boolean mergeRecord(Map<String, Map<String, ShortLink>> userLinks, Map<String, ShortLink> linksByCode,
+            LinkLogRecord record, Map<String, Integer> savedClicks, Map<String, Integer> foreignClicks) {
+        switch (record.getOp()) {
+            case CREATE: {
+                ShortLink link = record.getLink();
+                ShortLink existing = linksByCode.get(record.getCode());
+                if (existing != null && !isSameLink(existing, link)) {
+                    return false;
+                }
+                // В снимок попадает копия: живая ссылка продолжает меняться в памяти
+                ShortLink copy = ShortLink.restore(link.getShortCode(), link.getOriginalUrl(),
+                        link.getUserNickname(), link.getClickCount(), link.getClickLimit(),
+                        link.getCreatedAt(), link.getExpiresAt(), link.isActive());
+                applyLogRecord(userLinks, linksByCode, LinkLogRecord.create(copy));
+                savedClicks.put(record.getCode(), copy.getClickCount());
+                return true;
+            }
+            case CLICK: {
+                ShortLink link = linksByCode.get(record.getCode());
+                if (link == null || record.getClickCount() == null) {
+                    return true;
+                }
+                int clicks = record.getClickCount();
+                int saved = savedClicks.getOrDefault(record.getCode(), link.getClickCount());
+                int merged = link.getClickCount() + (clicks - saved);
+                link.setClickCount(merged);
+                savedClicks.put(record.getCode(), merged);
+                if (merged != clicks) {
+                    foreignClicks.merge(record.getCode(), merged - clicks, Integer::sum);
+                }
+                return true;
+            }
+            case DELETE:
+                savedClicks.remove(record.getCode());
+                applyLogRecord(userLinks, linksByCode, record);
+                return true;
+            default:
+                applyLogRecord(userLinks, linksByCode, record);
+                return true;
+        }
+    }
+
+    private static boolean isSameLink(ShortLink a, ShortLink b) {
+        return a.getUserNickname().equals(b.getUserNickname()) && a.getOriginalUrl().equals(b.getOriginalUrl());
+    }
+
+    private static Map<String, ShortLink> indexByCode(Map<String, Map<String, ShortLink>> userLinks) {
+        Map<String, ShortLink> linksByCode = new HashMap<>();
+        for (Map<String, ShortLink> userMap : userLinks.values()) {
+            for (ShortLink link : userMap.values()) {
+                linksByCode.put(link.getShortCode(), link);
+            }
+        }
+        return linksByCode;
+    }
+
+    private interface ShardAction<T> {
+        T run() throws IOException;
+    }
+
+    // Выполняет действие под блокировкой файла сегмента (shared - совместная, иначе монопольная)
+    private <T> T withShardLock(boolean shared, ShardAction<T> action) throws IOException {
+        synchronized (fileMonitor) {
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock(0, Long.MAX_VALUE, shared)) {
+                return action.run();
+            }
+        }
+    }
+
+    private void removeFromUserMap(Map<String, Map<String, ShortLink>> userLinks, ShortLink link) {
+        Map<String, ShortLink> userMap = userLinks.get(link.getUserNickname());
+        if (userMap != null) {
+            userMap.remove(link.getOriginalUrl(), link);
+            if (userMap.isEmpty()) {
+                userLinks.remove(link.getUserNickname());
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Не удалось удалить временный файл " + path + ": " + e.getMessage());
+        }
+    }
+}
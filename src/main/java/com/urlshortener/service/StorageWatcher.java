@@ -0,0 +1,74 @@
+package com.urlshortener.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Наблюдатель за директорией хранилища
+ * По событию файловой системы ждет debounceMillis, собирая остальные события пачки, и вызывает onChange один раз
+ * Если событий нет (или файловая система их не присылает), onChange вызывается раз в maxIntervalMillis
+ */
+class StorageWatcher implements AutoCloseable {
+    private final WatchService watchService;
+    private final Runnable onChange;
+    private final long debounceMillis;
+    private final long maxIntervalMillis;
+    private final Thread thread;
+
+    StorageWatcher(Path directory, Runnable onChange, long debounceMillis, long maxIntervalMillis) {
+        this.onChange = onChange;
+        this.debounceMillis = debounceMillis;
+        this.maxIntervalMillis = Math.max(1, maxIntervalMillis);
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось подписаться на изменения хранилища: " + e.getMessage(), e);
+        }
+        this.thread = new Thread(this::run, "storage-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.poll(maxIntervalMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Даем записи завершиться и собираем остальные события пачки
+                    Thread.sleep(debounceMillis);
+                    while (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                        key = watchService.poll();
+                    }
+                }
+                try {
+                    onChange.run();
+                } catch (Exception e) {
+                    System.err.println("Ошибка при чтении изменений хранилища: " + e.getMessage());
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // наблюдатель остановлен
+        }
+    }
+
+    // Останавливает наблюдение
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка при остановке наблюдения за хранилищем: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,59 @@
+package com.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Набор блокировок, распределенных по ключам (lock striping)
+ * Ключи с одинаковым номером полосы делят одну блокировку, разные полосы не мешают друг другу
+ * Несколько блокировок берутся в порядке номеров полос (lockAll), поэтому взаимная блокировка невозможна
+ */
+class StripedLocks {
+    private final ReentrantLock[] locks;
+
+    StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes) - 1) << 1;
+        this.locks = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Блокировка полосы, к которой относится ключ
+    Lock lockFor(String key) {
+        return locks[stripe(key)];
+    }
+
+    // Захватывает блокировки всех ключей в порядке номеров полос и возвращает их для освобождения
+    List<Lock> lockAll(Collection<String> keys) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String key : keys) {
+            stripes.add(stripe(key));
+        }
+        List<Lock> acquired = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+            acquired.add(locks[stripe]);
+        }
+        return acquired;
+    }
+
+    // Освобождает блокировки, полученные через lockAll
+    static void unlockAll(List<Lock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h & (locks.length - 1);
+    }
+}
@@ -20,12 +20,22 @@ public class TTLService {
     }
 
     // Запускает периодическую очистку истекших ссылок
+    // Очистка затрагивает только истекшие ссылки, поэтому ее можно запускать раз в несколько секунд
     public void start() {
-        scheduler.scheduleAtFixedRate(
-                this::cleanupExpiredLinks,
-                0,
-                config.getCleanupIntervalMinutes(),
-                TimeUnit.MINUTES);
+        long sweepIntervalSeconds = config.getSweepIntervalSeconds();
+        if (sweepIntervalSeconds > 0) {
+            scheduler.scheduleAtFixedRate(
+                    this::cleanupExpiredLinks,
+                    0,
+                    sweepIntervalSeconds,
+                    TimeUnit.SECONDS);
+        } else {
+            scheduler.scheduleAtFixedRate(
+                    this::cleanupExpiredLinks,
+                    0,
+                    config.getCleanupIntervalMinutes(),
+                    TimeUnit.MINUTES);
+        }
     }
 
     // Graceful shutdown
@@ -34,6 +44,11 @@ public class TTLService {
     }
 
     private void cleanupExpiredLinks() {
-        urlShortenerService.removeExpiredLinks();
+        try {
+            urlShortenerService.removeExpiredLinks();
+        } catch (Exception e) {
+            // Исключение остановило бы дальнейшие запуски по расписанию
+            System.err.println("Ошибка при очистке истекших ссылок: " + e.getMessage());
+        }
     }
 }
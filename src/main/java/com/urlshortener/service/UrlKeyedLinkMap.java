@@ -0,0 +1,174 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Ссылки пользователя по URL (Map<URL, ShortLink>), не хранящая сами строки URL
+ * Ключом служит URL ссылки: хеш лежит в int[], сравнение идет через ShortLink.hasOriginalUrl,
+ * поэтому URL, перенесенные в UrlArena, не дублируются в куче
+ * Открытая адресация с линейным пробированием; все методы синхронизированы,
+ * entrySet() и values() возвращают снимки (строки URL создаются только для них)
+ */
+public class UrlKeyedLinkMap extends AbstractMap<String, ShortLink> {
+    private int[] hashes = new int[8];
+    private ShortLink[] links = new ShortLink[8];
+    private int size;
+
+    @Override
+    public synchronized ShortLink get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = find((String) key);
+        return slot >= 0 ? links[slot] : null;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return key instanceof String && find((String) key) >= 0;
+    }
+
+    @Override
+    public synchronized ShortLink put(String url, ShortLink link) {
+        int slot = find(url);
+        if (slot >= 0) {
+            ShortLink previous = links[slot];
+            links[slot] = link;
+            return previous;
+        }
+        if ((size + 1) * 4 > links.length * 3) {
+            resize();
+        }
+        int hash = url.hashCode();
+        int mask = links.length - 1;
+        slot = home(hash, mask);
+        while (links[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        links[slot] = link;
+        size++;
+        return null;
+    }
+
+    @Override
+    public synchronized ShortLink remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = find((String) key);
+        if (slot < 0) {
+            return null;
+        }
+        ShortLink previous = links[slot];
+        deleteSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        int slot = find((String) key);
+        if (slot < 0 || links[slot] != value) {
+            return false;
+        }
+        deleteSlot(slot);
+        return true;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public synchronized Collection<ShortLink> values() {
+        Collection<ShortLink> values = new ArrayList<>(size);
+        for (ShortLink link : links) {
+            if (link != null) {
+                values.add(link);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized Set<Entry<String, ShortLink>> entrySet() {
+        Set<Entry<String, ShortLink>> entries = new LinkedHashSet<>();
+        for (ShortLink link : links) {
+            if (link != null) {
+                entries.add(new SimpleImmutableEntry<>(link.getOriginalUrl(), link));
+            }
+        }
+        return entries;
+    }
+
+    private int find(String url) {
+        int hash = url.hashCode();
+        int mask = links.length - 1;
+        int slot = home(hash, mask);
+        while (links[slot] != null) {
+            if (hashes[slot] == hash && links[slot].hasOriginalUrl(url)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Удаление со сдвигом следующих элементов цепочки на освободившееся место
+    private void deleteSlot(int slot) {
+        int mask = links.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (links[next] != null) {
+            int home = home(hashes[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                hashes[gap] = hashes[next];
+                links[gap] = links[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        hashes[gap] = 0;
+        links[gap] = null;
+        size--;
+    }
+
+    private void resize() {
+        int[] oldHashes = hashes;
+        ShortLink[] oldLinks = links;
+        hashes = new int[oldLinks.length * 2];
+        links = new ShortLink[oldLinks.length * 2];
+        int mask = links.length - 1;
+        for (int i = 0; i < oldLinks.length; i++) {
+            if (oldLinks[i] != null) {
+                int slot = home(oldHashes[i], mask);
+                while (links[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                links[slot] = oldLinks[i];
+            }
+        }
+    }
+
+    // Фибоначчиево хеширование: берутся старшие log2(емкости) бит произведения,
+    // для емкости 2^k сдвиг 32 - k равен числу ведущих нулей маски
+    private static int home(int hash, int mask) {
+        return (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+    }
+}
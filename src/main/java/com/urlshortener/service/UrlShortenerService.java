@@ -1,179 +1,536 @@
 package com.urlshortener.service;
 
 import com.urlshortener.config.Config;
+import com.urlshortener.model.CreateLinkRequest;
+import com.urlshortener.model.CreateLinkResult;
 import com.urlshortener.model.ShortLink;
+import com.urlshortener.model.UrlArena;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.SecureRandom;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * Сервис для управления короткими ссылками
  * Работает с никнеймами для идентификации пользователей
- * Все операции выполняются напрямую с файлом, без кеширования
+ * Данные загружаются из файла один раз при старте и хранятся в памяти,
+ * файл используется только для сохранения изменений
+ * Потокобезопасен: изменения ссылок одного пользователя упорядочены блокировкой его полосы никнеймов,
+ * записи журнала об одной ссылке - блокировкой полосы кодов, переходы по ссылкам блокировок не берут
+ * Изменения сохраняются через конвейер с групповой фиксацией (см. PersistencePipeline): потоки запросов только
+ * ставят записи в очередь, дождаться их сохранения на диске можно через whenPersisted
+ * При refresh.enabled изменения хранилища, сделанные другими процессами, подхватываются в фоне (см. StorageWatcher)
  */
 public class UrlShortenerService {
+    // Сколько раз ссылке выдается новый код, если прежний оказался занят в хранилище другим процессом
+    // Чтобы узнать об этом, создание ждет записи в файлы (binary и json без журнала; без ожидания fsync),
+    // поэтому каждое создание занимает круг записи хранилища; блокировка никнейма на это время отпускается
+    private static final int MAX_CREATE_ATTEMPTS = 10;
+
+    // Явная схема в начале URL; "host:8080" схемой не считается
+    private static final Pattern URL_SCHEME = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]*:(?![0-9])");
+
     private final Config config = Config.getInstance();
-    private final SecureRandom random = new SecureRandom();
 
     private final FileStorageService storageService;
 
+    // Хранилище в памяти: nickname -> Map<URL, ShortLink>
+    private final Map<String, Map<String, ShortLink>> userLinks = new ConcurrentHashMap<>();
+
+    // Глобальный индекс shortCode -> ShortLink для поиска за O(1), ключи - упакованные в long коды
+    private final ShortCodeIndex linksByCode = new ShortCodeIndex(config.getAlphabet(), 1024);
+
+    // Индекс ссылок по времени истечения для очистки без полного перебора
+    private final ExpiryIndex expiryIndex = new ExpiryIndex(link -> linksByCode.get(link.getShortCode()) == link,
+            config.getSweepSegments());
+
+    // Пул для параллельной очистки истекших ссылок: по задаче на сегмент индекса истечения
+    private final ForkJoinPool sweepPool = new ForkJoinPool(config.getSweepParallelism() > 0
+            ? config.getSweepParallelism()
+            : Runtime.getRuntime().availableProcessors());
+
+    // Метрики очистки: удалено всего, скорость последней очистки, длительность порций (мкс)
+    private final LongAdder expiredRemoved = new LongAdder();
+    private volatile double lastSweepLinksPerSecond;
+    private volatile long lastSweepMillis;
+    private final Log2Histogram sweepChunkMicros = new Log2Histogram();
+
+    // Арена вне кучи для URL (null - URL хранятся в куче)
+    private final UrlArena urlArena = config.isUrlArenaEnabled()
+            ? new UrlArena(config.getUrlArenaChunkBytes(), config.getUrlArenaMaxBytes())
+            : null;
+
+    // Блокировки по никнейму: создание и удаление ссылок пользователя, добавление и удаление его карты
+    private final StripedLocks userLocks = new StripedLocks(config.getLockStripes());
+
+    // Блокировки по коду: порядок записей о кликах и деактивации одной ссылки в журнале
+    private final StripedLocks codeLocks = new StripedLocks(config.getLockStripes());
+
+    // Конвейер сохранения: единственный поток-писатель, групповая фиксация и политика fsync
+    private final PersistencePipeline persistence;
+
+    // Буфер кликов (null - клики сохраняются сразу)
+    private final ClickBuffer clickBuffer;
+
+    // Генератор коротких кодов; уникальность проверяется по глобальному индексу
+    private final CodeGenerator codeGenerator;
+
+    // Фильтр Блума по живым кодам: отсекает запросы несуществующих кодов (null - фильтр выключен)
+    private final CountingBloomFilter codeFilter;
+    private final LongAdder filterRejects = new LongAdder();
+    private final LongAdder filterFalsePositives = new LongAdder();
+
+    // Кэш горячих ссылок перед индексом кодов (null - кэш выключен)
+    private final HotLinkCache hotCache = config.isHotCacheEnabled()
+            ? new HotLinkCache(config.getHotCacheMaxWeightBytes())
+            : null;
+
+    // Наблюдатель за изменениями хранилища другими процессами (null - выключен)
+    private final StorageWatcher storageWatcher;
+    private final LongAdder foreignChanges = new LongAdder();
+
     // Конструктор
     public UrlShortenerService() {
         this.storageService = new FileStorageService();
+        this.persistence = new PersistencePipeline(this::writeRecords, storageService::sync,
+                PersistencePipeline.FsyncPolicy.parse(config.getPersistenceFsync()),
+                config.getPersistenceFsyncIntervalMillis(), config.getPersistenceMaxBatchRecords(),
+                config.getPersistenceQueueCapacity());
+        loadUserLinks();
+        this.codeFilter = config.isBloomFilterEnabled() ? loadCodeFilter() : null;
+        this.codeGenerator = "sequence".equalsIgnoreCase(config.getCodeGenerator())
+                ? new SequenceCodeGenerator(linksByCode::containsKey)
+                : new RandomCodeGenerator(linksByCode::containsKey);
+        this.clickBuffer = config.isClickBufferEnabled()
+                ? new ClickBuffer(links -> await(persistence.submit(clickRecords(links))),
+                        config.getClickFlushIntervalMillis(),
+                        config.getClickFlushThreshold())
+                : null;
+        this.storageWatcher = startStorageWatcher();
     }
 
-    // Загружает данные из файла
-    private Map<String, Map<String, ShortLink>> loadUserLinks() {
-        return storageService.loadUserLinks();
+    // Запускает наблюдение за хранилищем, если оно включено и хранилище пишется записями
+    private StorageWatcher startStorageWatcher() {
+        if (!config.isRefreshEnabled()) {
+            return null;
+        }
+        if (!storageService.isWriteAheadLogEnabled()) {
+            System.err.println("Подхват изменений других процессов работает только в режиме журнала "
+                    + "или с бинарным хранилищем - наблюдение не запущено");
+            return null;
+        }
+        return new StorageWatcher(Paths.get(config.getStorageDirectory()), this::refreshFromStorage,
+                config.getRefreshDebounceMillis(), config.getRefreshMaxIntervalMillis());
+    }
+
+    // Загружает данные из файла в память (однократно при старте)
+    private void loadUserLinks() {
+        for (Map.Entry<String, Map<String, ShortLink>> entry : storageService.loadUserLinks().entrySet()) {
+            Map<String, ShortLink> userMap = newUserMap();
+            for (Map.Entry<String, ShortLink> linkEntry : entry.getValue().entrySet()) {
+                ShortLink link = linkEntry.getValue();
+                if (urlArena != null) {
+                    link.moveUrlTo(urlArena);
+                }
+                userMap.put(linkEntry.getKey(), link);
+                linksByCode.put(link.getShortCode(), link);
+                expiryIndex.add(link);
+            }
+            userLinks.put(entry.getKey(), userMap);
+        }
+    }
+
+    // Карта URL -> ShortLink одного пользователя; в режиме арены строки URL в ней не хранятся
+    private Map<String, ShortLink> newUserMap() {
+        return urlArena != null ? new UrlKeyedLinkMap() : new ConcurrentHashMap<>();
+    }
+
+    // Загружает сохраненный фильтр Блума, если он соответствует загруженным кодам, иначе строит заново
+    private CountingBloomFilter loadCodeFilter() {
+        CountingBloomFilter expected = CountingBloomFilter.create(
+                Math.max(config.getBloomFilterExpectedCodes(), 2L * linksByCode.size()),
+                config.getBloomFilterFalsePositiveRate());
+        CountingBloomFilter saved = CountingBloomFilter.load(getCodeFilterPath());
+        if (saved != null && saved.hasSameShape(expected) && saved.size() == linksByCode.size()
+                && saved.getFingerprint() == CountingBloomFilter.fingerprintOf(linksByCode.codes())) {
+            return saved;
+        }
+        for (String code : linksByCode.codes()) {
+            expected.add(code);
+        }
+        return expected;
     }
 
-    // Сохраняет данные в файл
-    private void saveUserLinks(Map<String, Map<String, ShortLink>> userLinks) {
+    // Сохраняет фильтр Блума рядом с файлами хранилища
+    private void saveCodeFilter() {
+        if (codeFilter == null) {
+            return;
+        }
         try {
-            storageService.saveUserLinks(userLinks);
+            codeFilter.save(getCodeFilterPath());
         } catch (Exception e) {
-            System.err.println("Ошибка при сохранении данных: " + e.getMessage());
+            System.err.println("Ошибка при сохранении фильтра Блума: " + e.getMessage());
         }
     }
 
+    private Path getCodeFilterPath() {
+        return Paths.get(config.getStorageDirectory()).resolve(config.getBloomFilterFile());
+    }
+
+    // Сохраняет изменения: дописывает записи в журнал или применяет их к перечитанному с диска снимку
+    // Вызывается потоком-писателем конвейера сохранения для каждой группы записей
+    // Возвращает коды CREATE, которые хранилище не сохранило: код уже занят ссылкой другого процесса
+    private Set<String> writeRecords(List<LinkLogRecord> records) {
+        if (records.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> rejectedCodes = new HashSet<>();
+        // Хранилище могло добавить к счетчикам клики других процессов - учитываем их и в памяти
+        for (Map.Entry<String, Integer> entry : storageService.appendLogRecords(records, rejectedCodes).entrySet()) {
+            ShortLink link = linksByCode.get(entry.getKey());
+            if (link != null) {
+                link.addClicks(entry.getValue());
+            }
+        }
+        return rejectedCodes;
+    }
+
+    // Ставит изменения в очередь на сохранение, ошибка сохранения не прерывает операцию
+    // Записи пишутся в порядке постановки, поэтому порядок, заданный блокировками вызывающего, сохраняется
+    private CompletableFuture<Void> persist(List<LinkLogRecord> records) {
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return persistence.submit(records).whenComplete((result, e) -> {
+            if (e != null) {
+                System.err.println("Ошибка при сохранении данных: " + e.getMessage());
+            }
+        });
+    }
+
+    // Ждет сохранения записей; ошибка сохранения пробрасывается вызывающему
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Future, который завершается, когда все изменения, принятые до вызова, сохранены
+    // с учетом политики fsync (при fsync: none - записаны в файлы, но не обязательно на диск)
+    public CompletableFuture<Void> whenPersisted() {
+        return persistence.submit(Collections.emptyList());
+    }
+
+    // Формирует записи журнала для ссылок с изменившимся счетчиком кликов
+    private List<LinkLogRecord> clickRecords(List<ShortLink> links) {
+        List<LinkLogRecord> records = new ArrayList<>();
+        for (ShortLink link : links) {
+            // Ссылка могла быть удалена, пока клик ждал сохранения
+            if (linksByCode.get(link.getShortCode()) != link) {
+                continue;
+            }
+            records.add(LinkLogRecord.click(link.getShortCode(), link.getClickCount()));
+            if (!link.isActive()) {
+                records.add(LinkLogRecord.deactivate(link.getShortCode()));
+            }
+        }
+        return records;
+    }
+
+    // Сохраняет клики, ожидающие в буфере
+    public void flushPendingClicks() {
+        if (clickBuffer != null) {
+            clickBuffer.flush();
+        }
+    }
+
+    // Останавливает фоновые задачи сервиса и сохраняет накопленные изменения
+    public void shutdown() {
+        if (storageWatcher != null) {
+            storageWatcher.close();
+        }
+        if (clickBuffer != null) {
+            clickBuffer.close();
+        }
+        sweepPool.shutdown();
+        persistence.close();
+        saveCodeFilter();
+    }
+
     // Валидирует URL
-    private void validateUrl(String url) {
+    static void validateUrl(String url) {
         if (url == null || url.trim().isEmpty()) {
             throw new IllegalArgumentException("URL не может быть пустым");
         }
 
+        String protocol;
         try {
-            new URL(url);
+            protocol = new URL(url).getProtocol();
         } catch (MalformedURLException e) {
             throw new IllegalArgumentException("Некорректный формат URL: " + e.getMessage());
         }
+        // Переход отдается браузеру как Location, поэтому file:, ftp: и т.п. не допускаются
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+            throw new IllegalArgumentException("Поддерживаются только ссылки http и https");
+        }
     }
 
-    // Генерирует уникальный короткий код на основе никнейма и URL
-    private String generateShortCode(String userNickname, String originalUrl) {
-        String alphabet = config.getAlphabet();
-        int codeLength = config.getCodeLength();
-
-        // Используем хеш от userNickname и URL для обеспечения уникальности
-        String combined = userNickname + originalUrl;
-        int hash = combined.hashCode();
+    // Создает короткую ссылку для пользователя по никнейму
+    public String createShortLink(String originalUrl, String userNickname, Integer clickLimit) {
+        originalUrl = normalizeUrl(originalUrl);
 
-        // Генерируем код на основе хеша и случайного компонента
-        StringBuilder code = new StringBuilder();
-        int seed = Math.abs(hash) + random.nextInt(1000000);
+        List<LinkLogRecord> records = new ArrayList<>(1);
+        ShortLink shortLink;
+        CompletableFuture<Set<String>> written = null;
+        Lock lock = userLocks.lockFor(userNickname);
+        lock.lock();
+        try {
+            shortLink = findOrAddLink(originalUrl, userNickname, clickLimit, records);
 
-        for (int i = 0; i < codeLength; i++) {
-            code.append(alphabet.charAt(seed % alphabet.length()));
-            seed = seed / alphabet.length();
+            // Сохраняем изменения в файл (под блокировкой, чтобы удаление не попало в журнал раньше создания)
+            if (!records.isEmpty()) {
+                written = submitCreated(records);
+            }
+        } finally {
+            lock.unlock();
         }
 
-        return code.toString();
-    }
-
-    // Генерирует случайный короткий код
-    private String generateRandomCode() {
-        String alphabet = config.getAlphabet();
-        int codeLength = config.getCodeLength();
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < codeLength; i++) {
-            code.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        if (written != null) {
+            awaitCreated(records, written);
+            // Если код оказался занят другим процессом, ссылка получила новый код
+            shortLink = currentLink(userNickname, originalUrl, shortLink);
         }
-        return code.toString();
+        return config.getBaseUrl() + shortLink.getShortCode();
     }
 
-    // Генерирует уникальный код для пользователя и URL
-    private String generateUniqueCode(String userNickname, String originalUrl) {
-        String code;
-        int attempts = 0;
+    // Создает пачку коротких ссылок, результаты - в порядке запросов
+    // URL проверяются параллельно, изменения сохраняются одной записью в журнал;
+    // ошибка в одном элементе попадает в его результат и не прерывает остальные
+    public List<CreateLinkResult> createShortLinks(List<CreateLinkRequest> requests) {
+        String[] urls = new String[requests.size()];
+        String[] errors = new String[requests.size()];
+        IntStream.range(0, requests.size()).parallel().forEach(i -> {
+            CreateLinkRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Пустой запрос");
+                }
+                urls[i] = normalizeUrl(request.getOriginalUrl());
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<String> nicknames = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateLinkRequest request = requests.get(i);
+            if (errors[i] != null) {
+                continue;
+            }
+            if (request.getUserNickname() == null || request.getUserNickname().isBlank()) {
+                errors[i] = "Никнейм не может быть пустым";
+            } else if (request.getClickLimit() != null && request.getClickLimit() <= 0) {
+                errors[i] = "Лимит должен быть положительным числом";
+            } else {
+                nicknames.add(request.getUserNickname());
+            }
+        }
 
-        // Загружаем данные из файла для проверки уникальности
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-        Set<String> existingCodes = getAllExistingCodes(userLinks);
+        List<LinkLogRecord> records = new ArrayList<>(requests.size());
+        ShortLink[] links = new ShortLink[requests.size()];
+        CompletableFuture<Set<String>> written = null;
+        List<Lock> locks = userLocks.lockAll(nicknames);
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                CreateLinkRequest request = requests.get(i);
+                if (errors[i] == null) {
+                    links[i] = findOrAddLink(urls[i], request.getUserNickname(), request.getClickLimit(), records);
+                }
+            }
 
-        do {
-            code = generateShortCode(userNickname, originalUrl);
-            attempts++;
-            // Если код уже существует, добавляем случайный компонент
-            if (existingCodes.contains(code) && attempts < 10) {
-                code = generateShortCode(userNickname, originalUrl + System.currentTimeMillis());
+            if (!records.isEmpty()) {
+                written = submitCreated(records);
             }
-        } while (existingCodes.contains(code) && attempts < 10);
+        } finally {
+            StripedLocks.unlockAll(locks);
+        }
+        if (written != null) {
+            awaitCreated(records, written);
+        }
 
-        // Если все еще не уникален, генерируем полностью случайный
-        if (existingCodes.contains(code)) {
-            code = generateRandomCode() + generateRandomCode().substring(0, 2);
+        // Ссылки берутся после сохранения: код, занятый другим процессом, заменен новым
+        List<CreateLinkResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors[i] != null) {
+                results.add(CreateLinkResult.failure(errors[i]));
+            } else {
+                ShortLink link = written != null
+                        ? currentLink(requests.get(i).getUserNickname(), urls[i], links[i])
+                        : links[i];
+                results.add(CreateLinkResult.success(config.getBaseUrl() + link.getShortCode()));
+            }
         }
+        return results;
+    }
 
-        return code;
+    // Ставит записи CREATE в очередь, вызывается под блокировками никнеймов создаваемых ссылок
+    // Если хранилище сверяет коды с другими процессами, возвращает Future записи в файлы
+    // с отклоненными кодами (см. awaitCreated), иначе null - ждать нечего
+    private CompletableFuture<Set<String>> submitCreated(List<LinkLogRecord> records) {
+        if (!storageService.detectsCodeConflicts()) {
+            persist(records);
+            return null;
+        }
+        return persistence.write(records);
     }
 
-    // Получает все существующие коды из всех пользователей
-    private Set<String> getAllExistingCodes(Map<String, Map<String, ShortLink>> userLinks) {
-        Set<String> codes = new HashSet<>();
-        for (Map<String, ShortLink> userMap : userLinks.values()) {
-            for (ShortLink link : userMap.values()) {
-                codes.add(link.getShortCode());
+    // Ждет записи созданных ссылок без блокировок никнеймов: другие пользователи той же полосы
+    // не стоят за вводом-выводом. Ссылка, код которой уже занят в хранилище, под блокировкой убирается
+    // из индексов и создается заново с новым кодом
+    private void awaitCreated(List<LinkLogRecord> records, CompletableFuture<Set<String>> written) {
+        for (int attempt = 1; written != null; attempt++) {
+            Set<String> rejectedCodes;
+            try {
+                rejectedCodes = written.join();
+            } catch (CompletionException e) {
+                // Как и в persist, ошибка сохранения не прерывает операцию
+                System.err.println("Ошибка при сохранении данных: " + e.getCause().getMessage());
+                return;
+            }
+            if (rejectedCodes.isEmpty()) {
+                return;
+            }
+
+            List<ShortLink> rejected = new ArrayList<>(rejectedCodes.size());
+            List<String> nicknames = new ArrayList<>(rejectedCodes.size());
+            for (LinkLogRecord record : records) {
+                if (rejectedCodes.contains(record.getCode())) {
+                    rejected.add(record.getLink());
+                    nicknames.add(record.getLink().getUserNickname());
+                }
+            }
+            List<LinkLogRecord> retry = new ArrayList<>(rejected.size());
+            List<Lock> locks = userLocks.lockAll(nicknames);
+            try {
+                List<ShortLink> unlinked = new ArrayList<>(rejected.size());
+                for (ShortLink link : rejected) {
+                    // Пока блокировка была отпущена, ссылку могли удалить
+                    if (unlinkLink(link)) {
+                        expiryIndex.markRemoved(link);
+                        unlinked.add(link);
+                    }
+                }
+                if (!unlinked.isEmpty() && attempt == MAX_CREATE_ATTEMPTS) {
+                    throw new RuntimeException("Не удалось сохранить ссылку: коды " + rejectedCodes
+                            + " заняты в хранилище другим процессом");
+                }
+                for (ShortLink link : unlinked) {
+                    System.err.println("Код " + link.getShortCode() + " уже занят в хранилище другим процессом - "
+                            + "ссылке выдается новый код");
+                    findOrAddLink(link.getOriginalUrl(), link.getUserNickname(), link.getClickLimit(), retry);
+                }
+                written = retry.isEmpty() ? null : persistence.write(retry);
+            } finally {
+                StripedLocks.unlockAll(locks);
             }
+            records = retry;
         }
-        return codes;
     }
 
-    // Создает короткую ссылку для пользователя по никнейму
-    public String createShortLink(String originalUrl, String userNickname, Integer clickLimit) {
+    // Текущая ссылка пользователя на URL; если ее уже нет (удалена) - ссылка, выданная при создании
+    private ShortLink currentLink(String userNickname, String originalUrl, ShortLink created) {
+        Map<String, ShortLink> userMap = userLinks.get(userNickname);
+        ShortLink link = userMap != null ? userMap.get(originalUrl) : null;
+        return link != null ? link : created;
+    }
+
+    // Приводит URL к виду со схемой и проверяет его
+    static String normalizeUrl(String originalUrl) {
         // Проверяем валидность URL
         if (originalUrl == null || originalUrl.trim().isEmpty()) {
             throw new IllegalArgumentException("URL не может быть пустым");
         }
 
-        if (!originalUrl.startsWith("http://") && !originalUrl.startsWith("https://")) {
+        // Схема дописывается, только если ее нет: ftp://, file: и т.п. не превращаются в https и отклоняются ниже
+        if (!originalUrl.startsWith("http://") && !originalUrl.startsWith("https://")
+                && !URL_SCHEME.matcher(originalUrl).lookingAt()) {
             originalUrl = "https://" + originalUrl;
         }
 
-        // Валидируем URL
+        // Валидируем URL (в т.ч. схему - только http и https)
         validateUrl(originalUrl);
+        return originalUrl;
+    }
 
-        // Загружаем данные из файла
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-
+    // Возвращает ссылку пользователя на этот URL; если её нет - создает и добавляет запись CREATE в records
+    // Вызывается под блокировкой никнейма
+    private ShortLink findOrAddLink(String originalUrl, String userNickname, Integer clickLimit,
+            List<LinkLogRecord> records) {
         // Инициализируем мапу для пользователя, если её нет
-        if (!userLinks.containsKey(userNickname)) {
-            userLinks.put(userNickname, new HashMap<>());
-        }
+        Map<String, ShortLink> userMap = userLinks.computeIfAbsent(userNickname, k -> newUserMap());
 
         // Проверяем, не существует ли уже ссылка для этого URL у этого пользователя
-        Map<String, ShortLink> userMap = userLinks.get(userNickname);
-        if (userMap.containsKey(originalUrl)) {
-            // Возвращаем существующую ссылку
-            ShortLink existingLink = userMap.get(originalUrl);
-            return config.getBaseUrl() + existingLink.getShortCode();
+        ShortLink existingLink = userMap.get(originalUrl);
+        if (existingLink != null) {
+            return existingLink;
         }
 
-        // Генерируем уникальный код для этого пользователя и URL
-        String shortCode = generateUniqueCode(userNickname, originalUrl);
-
         // Вычисляем время истечения
         LocalDateTime expiresAt = LocalDateTime.now().plusHours(config.getDefaultTtlHours());
 
-        // Создаем короткую ссылку
-        ShortLink shortLink = new ShortLink(shortCode, originalUrl, userNickname, clickLimit, expiresAt);
+        // Генерируем код и занимаем его в глобальном индексе; если другой пользователь параллельно
+        // занял тот же код, генерируем новый
+        // Код попадает в фильтр раньше, чем в индекс, чтобы параллельный поиск его не отсек
+        ShortLink shortLink;
+        while (true) {
+            String shortCode = codeGenerator.generate(userNickname, originalUrl);
+            shortLink = new ShortLink(shortCode, originalUrl, userNickname, clickLimit, expiresAt);
+            if (urlArena != null) {
+                shortLink.moveUrlTo(urlArena);
+            }
+            if (codeFilter != null) {
+                codeFilter.add(shortCode);
+            }
+            if (linksByCode.putIfAbsent(shortCode, shortLink)) {
+                break;
+            }
+            if (codeFilter != null) {
+                codeFilter.remove(shortCode);
+            }
+        }
 
         // Сохраняем связь URL -> ShortLink для этого пользователя
         userMap.put(originalUrl, shortLink);
+        expiryIndex.add(shortLink);
 
-        // Сохраняем изменения в файл
-        saveUserLinks(userLinks);
-
-        return config.getBaseUrl() + shortCode;
+        records.add(LinkLogRecord.create(shortLink));
+        return shortLink;
     }
 
     // Получает оригинальный URL по короткому коду и увеличивает счетчик кликов
     public String getOriginalUrl(String shortCode) {
-        // Загружаем данные из файла
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-        ShortLink link = findLinkByCode(shortCode, userLinks);
+        // Для горячей ссылки строка URL берется из кэша, а не собирается заново
+        HotLinkCache.Entry cached = hotCache != null && shortCode != null ? hotCache.get(shortCode) : null;
+        ShortLink link = cached != null ? cached.getLink() : findLinkByCode(shortCode);
 
         if (link == null) {
             return null;
@@ -181,132 +538,535 @@ public class UrlShortenerService {
 
         // Проверяем, не истекла ли ссылка
         if (link.isExpired()) {
-            link.setActive(false);
-            saveUserLinks(userLinks); // Сохраняем изменение статуса
+            invalidateHotLink(shortCode);
+            // Изменение статуса сохраняется один раз - тем переходом, который снял признак активности
+            if (link.deactivate()) {
+                persistLinkRecords(shortCode, () -> List.of(LinkLogRecord.deactivate(shortCode)));
+            }
             return null;
         }
 
-        // Проверяем лимит кликов
-        if (link.isClickLimitExceeded()) {
+        // Атомарно занимаем клик: при исчерпанном лимите переход не выполняется
+        if (!link.tryClaimClick()) {
+            invalidateHotLink(shortCode);
             return null;
         }
 
-        // Увеличиваем счетчик кликов
-        link.incrementClickCount();
-
-        // Если лимит исчерпан после этого клика, деактивируем ссылку
+        // Если лимит исчерпан после этого клика, деактивируем ссылку и убираем ее из кэша
+        String originalUrl = cached != null ? cached.getOriginalUrl() : link.getOriginalUrl();
         if (link.isClickLimitExceeded()) {
             link.setActive(false);
+            invalidateHotLink(shortCode);
+        } else if (cached == null) {
+            cacheHotLink(shortCode, link, originalUrl);
         }
 
-        // Сохраняем изменения (обновленный счетчик кликов)
-        saveUserLinks(userLinks);
+        // Сохраняем изменения (обновленный счетчик кликов): пачкой через буфер или сразу
+        if (clickBuffer != null) {
+            clickBuffer.add(link);
+        } else {
+            persistLinkRecords(shortCode, () -> clickRecords(List.of(link)));
+        }
 
-        return link.getOriginalUrl();
+        return originalUrl;
     }
 
-    // Находит ссылку по коду во всех пользователях
-    private ShortLink findLinkByCode(String shortCode, Map<String, Map<String, ShortLink>> userLinks) {
-        for (Map<String, ShortLink> userMap : userLinks.values()) {
-            for (ShortLink link : userMap.values()) {
-                if (link.getShortCode().equals(shortCode)) {
-                    return link;
-                }
-            }
+    // Сохраняет записи об одной ссылке под блокировкой ее кода
+    // Записи формируются уже под блокировкой, поэтому более поздний счетчик кликов не окажется в журнале
+    // раньше более раннего
+    private void persistLinkRecords(String shortCode, Supplier<List<LinkLogRecord>> records) {
+        Lock lock = codeLocks.lockFor(shortCode);
+        lock.lock();
+        try {
+            persist(records.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Кладет ссылку в кэш горячих ссылок
+    // Если ссылку успели удалить из индекса, пока она добавлялась, запись сразу убирается
+    private void cacheHotLink(String shortCode, ShortLink link, String originalUrl) {
+        if (hotCache == null) {
+            return;
+        }
+        hotCache.put(shortCode, link, originalUrl);
+        if (linksByCode.get(shortCode) != link) {
+            hotCache.invalidate(shortCode);
+        }
+    }
+
+    // Убирает ссылку из кэша горячих ссылок
+    private void invalidateHotLink(String shortCode) {
+        if (hotCache != null) {
+            hotCache.invalidate(shortCode);
         }
-        return null;
     }
 
-    // Находит ссылку по коду (загружает данные из файла)
+    // Находит ссылку по коду через глобальный индекс
+    // Несуществующие коды в большинстве случаев отсекаются фильтром Блума без обращения к индексу
     private ShortLink findLinkByCode(String shortCode) {
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-        return findLinkByCode(shortCode, userLinks);
+        if (shortCode == null) {
+            return null;
+        }
+        if (codeFilter == null) {
+            return linksByCode.get(shortCode);
+        }
+        if (!codeFilter.mightContain(shortCode)) {
+            filterRejects.increment();
+            return null;
+        }
+        ShortLink link = linksByCode.get(shortCode);
+        if (link == null) {
+            filterFalsePositives.increment();
+        }
+        return link;
+    }
+
+    // Коды из глобального индекса (для проверки его согласованности с картами пользователей)
+    List<String> indexedCodes() {
+        return linksByCode.codes();
+    }
+
+    // Все ссылки (обход живых карт без копирования, для экспорта)
+    public Iterable<ShortLink> allLinks() {
+        return () -> userLinks.values().stream().flatMap(userMap -> userMap.values().stream()).iterator();
+    }
+
+    // Добавляет готовые ссылки (импорт), возвращает количество добавленных
+    // Ссылки с занятым кодом или с URL, уже сокращенным у владельца, пропускаются;
+    // ссылке без кода назначается новый, без срока - срок по умолчанию
+    public int importLinks(List<ShortLink> links) {
+        List<String> nicknames = new ArrayList<>(links.size());
+        for (ShortLink link : links) {
+            nicknames.add(link.getUserNickname());
+        }
+        List<LinkLogRecord> records = new ArrayList<>(links.size());
+        List<Lock> locks = userLocks.lockAll(nicknames);
+        try {
+            importLocked(links, records);
+        } finally {
+            StripedLocks.unlockAll(locks);
+        }
+
+        if (!records.isEmpty()) {
+            await(persistence.submit(records));
+        }
+        return records.size();
+    }
+
+    // Добавляет ссылки импорта под блокировками их никнеймов
+    // URL приводится к виду со схемой и проверяется так же, как при создании; некорректные ссылки пропускаются
+    private void importLocked(List<ShortLink> links, List<LinkLogRecord> records) {
+        for (ShortLink link : links) {
+            String originalUrl;
+            try {
+                originalUrl = normalizeUrl(link.getOriginalUrl());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            String shortCode = link.getShortCode();
+            if (shortCode == null || shortCode.isEmpty()) {
+                shortCode = codeGenerator.generate(link.getUserNickname(), originalUrl);
+            }
+            LocalDateTime expiresAt = link.getExpiresAt() != null
+                    ? link.getExpiresAt()
+                    : LocalDateTime.now().plusHours(config.getDefaultTtlHours());
+            LocalDateTime createdAt = link.getCreatedAt() != null ? link.getCreatedAt() : LocalDateTime.now();
+            ShortLink imported = ShortLink.restore(shortCode, originalUrl, link.getUserNickname(),
+                    link.getClickCount(), link.getClickLimit(), createdAt, expiresAt, link.isActive());
+
+            Map<String, ShortLink> userMap = userLinks.computeIfAbsent(imported.getUserNickname(), k -> newUserMap());
+            if (userMap.containsKey(imported.getOriginalUrl())) {
+                continue;
+            }
+            if (urlArena != null) {
+                imported.moveUrlTo(urlArena);
+            }
+            if (codeFilter != null) {
+                codeFilter.add(shortCode);
+            }
+            if (!linksByCode.putIfAbsent(shortCode, imported)) {
+                if (codeFilter != null) {
+                    codeFilter.remove(shortCode);
+                }
+                continue;
+            }
+            userMap.put(originalUrl, imported);
+            expiryIndex.add(imported);
+            records.add(LinkLogRecord.create(imported));
+        }
     }
 
     // Получает информацию о ссылке
     public ShortLink getLinkInfo(String shortCode) {
-        return findLinkByCode(shortCode);
+        if (hotCache == null || shortCode == null) {
+            return findLinkByCode(shortCode);
+        }
+        HotLinkCache.Entry cached = hotCache.get(shortCode);
+        if (cached != null) {
+            return cached.getLink();
+        }
+        ShortLink link = findLinkByCode(shortCode);
+        if (link != null && link.isActive() && !link.isExpired() && !link.isClickLimitExceeded()) {
+            cacheHotLink(shortCode, link, link.getOriginalUrl());
+        }
+        return link;
     }
 
     // Получает все ссылки пользователя по никнейму
     public List<ShortLink> getUserLinks(String userNickname) {
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
         Map<String, ShortLink> userMap = userLinks.getOrDefault(userNickname, Collections.emptyMap());
         return new ArrayList<>(userMap.values());
     }
 
     // Удаляет ссылку (только если пользователь является её создателем)
     public boolean deleteLink(String shortCode, String userNickname) {
-        // Загружаем данные из файла
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-        Map<String, ShortLink> userMap = userLinks.get(userNickname);
-        if (userMap == null) {
+        if (!userLinks.containsKey(userNickname)) {
             return false;
         }
 
-        // Находим ссылку по коду
-        String urlToRemove = null;
-        for (Map.Entry<String, ShortLink> entry : userMap.entrySet()) {
-            if (entry.getValue().getShortCode().equals(shortCode)) {
-                if (!entry.getValue().getUserNickname().equals(userNickname)) {
-                    return false; // Пользователь не является создателем ссылки
-                }
-                urlToRemove = entry.getKey();
-                break;
-            }
+        // Находим ссылку по коду через глобальный индекс
+        ShortLink link = findLinkByCode(shortCode);
+        if (link == null) {
+            return false;
+        }
+        if (!link.getUserNickname().equals(userNickname)) {
+            return false; // Пользователь не является создателем ссылки
         }
 
-        if (urlToRemove == null) {
+        if (removeLinks(List.of(link)) == 0) {
             return false;
         }
+        expiryIndex.markRemoved(link);
+        return true;
+    }
+
+    // Удаляет ссылки из индексов и сохраняет записи DELETE, возвращает количество удаленных
+    // Записи ставятся в очередь до удаления из индекса кодов: пока код занят, ссылка с тем же кодом
+    // не может быть создана и попасть в хранилище раньше записи об удалении
+    private int removeLinks(List<ShortLink> links) {
+        if (links.isEmpty()) {
+            return 0;
+        }
+        List<LinkLogRecord> records = new ArrayList<>(links.size());
+        for (ShortLink link : links) {
+            records.add(LinkLogRecord.delete(link.getShortCode()));
+        }
+        persist(records);
 
-        // Удаляем из индекса пользователя
-        userMap.remove(urlToRemove);
+        int removed = 0;
+        for (ShortLink link : links) {
+            Lock lock = userLocks.lockFor(link.getUserNickname());
+            lock.lock();
+            try {
+                if (unlinkLink(link)) {
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return removed;
+    }
 
-        // Если у пользователя больше нет ссылок, можно удалить его запись
-        if (userMap.isEmpty()) {
-            userLinks.remove(userNickname);
+    // Убирает ссылку из глобального индекса, фильтра, кэша и карты пользователя; вызывается под блокировкой никнейма
+    private boolean unlinkLink(ShortLink link) {
+        String shortCode = link.getShortCode();
+        // Ссылка могла быть удалена раньше (владельцем или очисткой)
+        if (!linksByCode.remove(shortCode, link)) {
+            return false;
         }
+        if (codeFilter != null) {
+            codeFilter.remove(shortCode);
+        }
+        invalidateHotLink(shortCode);
 
-        // Сохраняем изменения в файл
-        saveUserLinks(userLinks);
+        Map<String, ShortLink> userMap = userLinks.get(link.getUserNickname());
+        if (userMap != null) {
+            userMap.remove(link.getOriginalUrl(), link);
+        }
 
+        // Если у пользователя больше нет ссылок, удаляем его запись
+        userLinks.computeIfPresent(link.getUserNickname(), (k, m) -> m.isEmpty() ? null : m);
         return true;
     }
 
-    // Удаляет истекшие ссылки
-    public void removeExpiredLinks() {
-        // Загружаем данные из файла
-        Map<String, Map<String, ShortLink>> userLinks = loadUserLinks();
-        boolean hasChanges = false;
+    // Удаляет истекшие ссылки, возвращает количество удаленных
+    // Просматриваются только ссылки, извлеченные из индекса по времени истечения; сегменты индекса
+    // очищаются параллельно в пуле ForkJoin порциями по sweepChunkSize, каждая порция фиксируется отдельно,
+    // поэтому ни сегмент индекса, ни очередь сохранения не заняты очисткой надолго
+    public int removeExpiredLinks() {
+        long start = System.nanoTime();
+        int removed = sweepPool.invoke(new ExpirySweep(LocalDateTime.now(), 0, expiryIndex.getSegmentCount()));
+        long elapsed = System.nanoTime() - start;
+
+        expiredRemoved.add(removed);
+        lastSweepMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        lastSweepLinksPerSecond = removed * 1e9 / Math.max(1, elapsed);
+        return removed;
+    }
+
+    // Очистка диапазона сегментов индекса истечения: диапазон делится пополам до одного сегмента на задачу
+    private final class ExpirySweep extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDateTime now;
+        private final int from;
+        private final int to;
 
-        for (Map.Entry<String, Map<String, ShortLink>> userEntry : userLinks.entrySet()) {
-            Map<String, ShortLink> userMap = userEntry.getValue();
-            List<String> urlsToRemove = new ArrayList<>();
+        ExpirySweep(LocalDateTime now, int from, int to) {
+            this.now = now;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from == 1) {
+                return sweepSegment(from, now);
+            }
+            int middle = (from + to) >>> 1;
+            ExpirySweep left = new ExpirySweep(now, from, middle);
+            left.fork();
+            int right = new ExpirySweep(now, middle, to).compute();
+            return left.join() + right;
+        }
+    }
 
-            for (Map.Entry<String, ShortLink> linkEntry : userMap.entrySet()) {
-                if (linkEntry.getValue().isExpired()) {
-                    urlsToRemove.add(linkEntry.getKey());
+    // Удаляет истекшие ссылки одного сегмента порциями; записи DELETE каждой порции - одна фиксация
+    private int sweepSegment(int segment, LocalDateTime now) {
+        int chunkSize = Math.max(1, config.getSweepChunkSize());
+        int removed = 0;
+        while (true) {
+            long start = System.nanoTime();
+            List<ShortLink> chunk = expiryIndex.pollExpired(segment, now, chunkSize);
+            List<ShortLink> expired = new ArrayList<>(chunk.size());
+            for (ShortLink link : chunk) {
+                // Ссылка могла быть удалена владельцем раньше
+                if (linksByCode.get(link.getShortCode()) == link) {
+                    expired.add(link);
                 }
             }
+            removed += removeLinks(expired);
+            sweepChunkMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            if (chunk.size() < chunkSize) {
+                return removed;
+            }
+        }
+    }
 
-            for (String url : urlsToRemove) {
-                userMap.remove(url);
-                hasChanges = true;
+    // Применяет изменения, сделанные в хранилище другими процессами с прошлого вызова, без перезагрузки
+    // Возвращает количество примененных изменений
+    public int refreshFromStorage() {
+        StorageChanges changes = storageService.readForeignChanges();
+        for (LinkLogRecord record : changes.getRecords()) {
+            applyForeignRecord(record);
+        }
+        for (Map.Entry<String, Integer> entry : changes.getAddedClicks().entrySet()) {
+            ShortLink link = linksByCode.get(entry.getKey());
+            if (link != null) {
+                link.addClicks(entry.getValue());
             }
+        }
+        foreignChanges.add(changes.size());
+        return changes.size();
+    }
 
-            // Если у пользователя больше нет ссылок, удаляем его запись
-            if (userMap.isEmpty()) {
-                userLinks.remove(userEntry.getKey());
+    // Применяет одну чужую запись к состоянию в памяти
+    private void applyForeignRecord(LinkLogRecord record) {
+        String shortCode = record.getCode();
+        switch (record.getOp()) {
+            case CREATE:
+                addForeignLink(record.getLink());
+                return;
+            case DELETE: {
+                ShortLink link = linksByCode.get(shortCode);
+                if (link == null) {
+                    return;
+                }
+                Lock lock = userLocks.lockFor(link.getUserNickname());
+                lock.lock();
+                try {
+                    if (!unlinkLink(link)) {
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                expiryIndex.markRemoved(link);
+                return;
+            }
+            case DEACTIVATE: {
+                ShortLink link = linksByCode.get(shortCode);
+                if (link != null) {
+                    link.setActive(false);
+                    invalidateHotLink(shortCode);
+                }
+                return;
+            }
+            case CLICK: {
+                // В журнал пишется итоговый счетчик: добавляется только то, чего в памяти еще нет
+                ShortLink link = linksByCode.get(shortCode);
+                if (link != null && record.getClickCount() != null) {
+                    int added = record.getClickCount() - link.getClickCount();
+                    if (added > 0) {
+                        link.addClicks(added);
+                    }
+                }
+                return;
             }
+            default:
+                break;
         }
+    }
 
-        if (hasChanges) {
-            // Сохраняем изменения после удаления истекших ссылок
-            saveUserLinks(userLinks);
+    // Добавляет ссылку, созданную другим процессом, под блокировкой никнейма владельца
+    private void addForeignLink(ShortLink link) {
+        String shortCode = link.getShortCode();
+        Lock lock = userLocks.lockFor(link.getUserNickname());
+        lock.lock();
+        try {
+            if (urlArena != null) {
+                link.moveUrlTo(urlArena);
+            }
+            if (codeFilter != null) {
+                codeFilter.add(shortCode);
+            }
+            if (!linksByCode.putIfAbsent(shortCode, link)) {
+                if (codeFilter != null) {
+                    codeFilter.remove(shortCode);
+                }
+                if (linksByCode.get(shortCode) != null
+                        && !linksByCode.get(shortCode).getUserNickname().equals(link.getUserNickname())) {
+                    System.err.println("Код " + shortCode + " создан другим процессом для другой ссылки - пропущен");
+                }
+                return;
+            }
+            userLinks.computeIfAbsent(link.getUserNickname(), k -> newUserMap())
+                    .putIfAbsent(link.getOriginalUrl(), link);
+            expiryIndex.add(link);
+        } finally {
+            lock.unlock();
         }
     }
 
+    // Количество ссылок, удаленных очисткой истекших
+    public long getExpiredRemovedCount() {
+        return expiredRemoved.sum();
+    }
+
+    // Скорость последней очистки, ссылок в секунду
+    public double getLastSweepLinksPerSecond() {
+        return lastSweepLinksPerSecond;
+    }
+
+    public long getLastSweepMillis() {
+        return lastSweepMillis;
+    }
+
+    // Самая долгая порция очистки, мкс: дольше этого очистка не занимает ни сегмент индекса, ни свой поток
+    public long getMaxSweepChunkMicros() {
+        return sweepChunkMicros.getMax();
+    }
+
+    public long getSweepChunkMicrosPercentile(double percentile) {
+        return sweepChunkMicros.getPercentile(percentile);
+    }
+
+    // Количество групповых фиксаций конвейера сохранения
+    public long getCommitCount() {
+        return persistence.getBatchSizes().getCount();
+    }
+
+    // Перцентиль числа записей в групповой фиксации
+    public long getCommitBatchSizePercentile(double percentile) {
+        return persistence.getBatchSizes().getPercentile(percentile);
+    }
+
+    public double getMeanCommitBatchSize() {
+        return persistence.getBatchSizes().getMean();
+    }
+
+    // Перцентиль времени от постановки изменения в очередь до его сохранения (с fsync, если он требуется), мкс
+    public long getCommitLatencyMicrosPercentile(double percentile) {
+        return persistence.getCommitLatencies().getPercentile(percentile);
+    }
+
+    public long getMaxCommitLatencyMicros() {
+        return persistence.getCommitLatencies().getMax();
+    }
+
+    // Перцентиль длительности одного fsync, мкс
+    public long getFsyncMicrosPercentile(double percentile) {
+        return persistence.getSyncDurations().getPercentile(percentile);
+    }
+
+    // Количество изменений других процессов, примененных к памяти
+    public long getForeignChangeCount() {
+        return foreignChanges.sum();
+    }
+
+    // Записывает снимок хранилища и обрезает журнал изменений, возвращает размер снимка в байтах
+    public long compactStorage() {
+        long size = storageService.writeSnapshot();
+        saveCodeFilter();
+        return size;
+    }
+
+    // Есть ли у хранилища что сжимать в фоне: журнал изменений или удаленные записи бинарного хранилища
+    // (json без журнала перезаписывает снимок при каждом сохранении)
+    public boolean isStorageCompactable() {
+        return storageService.isWriteAheadLogEnabled();
+    }
+
+    // Текущий размер журнала изменений в байтах
+    public long getStorageLogSize() {
+        return storageService.getLogSize();
+    }
+
+    // Наблюдаемая доля ложных срабатываний фильтра Блума среди запросов несуществующих кодов
+    public double getCodeFilterFalsePositiveRate() {
+        long falsePositives = filterFalsePositives.sum();
+        long negatives = falsePositives + filterRejects.sum();
+        return negatives == 0 ? 0 : (double) falsePositives / negatives;
+    }
+
+    // Ожидаемая доля ложных срабатываний фильтра Блума при текущем заполнении
+    public double getCodeFilterExpectedFalsePositiveRate() {
+        return codeFilter != null ? codeFilter.getExpectedFalsePositiveRate() : 0;
+    }
+
+    // Память, занятая фильтром Блума, в байтах
+    public long getCodeFilterMemoryBytes() {
+        return codeFilter != null ? codeFilter.getMemoryBytes() : 0;
+    }
+
+    // Память, занятая таблицей индекса кодов, в байтах
+    public long getCodeIndexMemoryBytes() {
+        return linksByCode.getTableMemoryBytes();
+    }
+
+    // Байт памяти вне кучи, занятых URL (0 - арена выключена)
+    public long getUrlArenaUsedBytes() {
+        return urlArena != null ? urlArena.getUsedBytes() : 0;
+    }
+
+    // Доля запросов, обслуженных кэшем горячих ссылок
+    public double getHotCacheHitRatio() {
+        return hotCache != null ? hotCache.getHitRatio() : 0;
+    }
+
+    // Количество ссылок, вытесненных из кэша горячих ссылок
+    public long getHotCacheEvictions() {
+        return hotCache != null ? hotCache.getEvictions() : 0;
+    }
+
+    // Количество ссылок в кэше горячих ссылок
+    public int getHotCacheSize() {
+        return hotCache != null ? hotCache.size() : 0;
+    }
+
     // Получает статистику по ссылке
     public String getLinkStatus(String shortCode) {
         ShortLink link = findLinkByCode(shortCode);
@@ -0,0 +1,75 @@
+package com.urlshortener.service;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.urlshortener.model.ShortLink;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потоковый адаптер Gson для снимка хранилища nickname -> Map<URL, ShortLink>
+ * Читает сразу в ConcurrentHashMap (внешняя карта) и HashMap (ссылки пользователя), без промежуточных копий
+ */
+public class UserLinksAdapter extends TypeAdapter<Map<String, Map<String, ShortLink>>> {
+    // Тип, под которым адаптер регистрируется в GsonBuilder
+    public static final Type TYPE = new TypeToken<Map<String, Map<String, ShortLink>>>() {
+    }.getType();
+
+    private final ShortLinkAdapter linkAdapter;
+
+    public UserLinksAdapter(ShortLinkAdapter linkAdapter) {
+        this.linkAdapter = linkAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Map<String, Map<String, ShortLink>> userLinks) throws IOException {
+        if (userLinks == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, Map<String, ShortLink>> userEntry : userLinks.entrySet()) {
+            out.name(userEntry.getKey());
+            out.beginObject();
+            for (Map.Entry<String, ShortLink> linkEntry : userEntry.getValue().entrySet()) {
+                out.name(linkEntry.getKey());
+                linkAdapter.write(out, linkEntry.getValue());
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Map<String, Map<String, ShortLink>> read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, Map<String, ShortLink>> userLinks = new ConcurrentHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String nickname = in.nextName();
+            Map<String, ShortLink> userMap = new HashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String url = in.nextName();
+                ShortLink link = linkAdapter.read(in);
+                if (link != null) {
+                    userMap.put(url, link);
+                }
+            }
+            in.endObject();
+            userLinks.put(nickname, userMap);
+        }
+        in.endObject();
+        return userLinks;
+    }
+}
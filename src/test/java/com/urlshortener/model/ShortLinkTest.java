@@ -0,0 +1,86 @@
+package com.urlshortener.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Атомарный захват кликов при конкурентных переходах
+ */
+class ShortLinkTest {
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 500;
+
+    @Test
+    void claimsExactlyClickLimitUnderContention() throws Exception {
+        for (int limit : new int[]{1, 63, 1000, THREADS * ATTEMPTS_PER_THREAD - 1}) {
+            ShortLink link = newLink(limit);
+
+            int claimed = claimConcurrently(link);
+
+            assertEquals(limit, claimed, "лимит " + limit);
+            assertEquals(limit, link.getClickCount(), "лимит " + limit);
+            assertTrue(link.isClickLimitExceeded());
+            assertFalse(link.tryClaimClick());
+            assertEquals(limit, link.getClickCount());
+        }
+    }
+
+    @Test
+    void claimsEveryClickWithoutLimit() throws Exception {
+        ShortLink link = newLink(null);
+
+        int claimed = claimConcurrently(link);
+
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, claimed);
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, link.getClickCount());
+        assertFalse(link.isClickLimitExceeded());
+    }
+
+    @Test
+    void foreignClicksCountTowardsLimit() throws Exception {
+        ShortLink link = newLink(1000);
+        link.addClicks(400);
+
+        assertEquals(600, claimConcurrently(link));
+        assertEquals(1000, link.getClickCount());
+    }
+
+    private static ShortLink newLink(Integer clickLimit) {
+        return new ShortLink("abc123", "https://example.com", "alice", clickLimit, LocalDateTime.now().plusHours(1));
+    }
+
+    // Все потоки стартуют одновременно и пытаются занять по ATTEMPTS_PER_THREAD кликов
+    private static int claimConcurrently(ShortLink link) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger claimed = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (link.tryClaimClick()) {
+                            claimed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            return claimed.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
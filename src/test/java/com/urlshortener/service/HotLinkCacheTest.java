@@ -0,0 +1,120 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш горячих ссылок: допуск W-TinyLFU, удаление и конкурентный доступ
+ */
+class HotLinkCacheTest {
+    // Примерно 100 записей вида c123 -> https://example.com/123
+    private static final long MAX_WEIGHT = 100 * 150;
+
+    @Test
+    void returnsCachedEntryUntilInvalidated() {
+        HotLinkCache cache = new HotLinkCache(MAX_WEIGHT);
+        ShortLink link = link(1);
+
+        assertNull(cache.get("c1"));
+        cache.put("c1", link, link.getOriginalUrl());
+        HotLinkCache.Entry entry = cache.get("c1");
+
+        assertNotNull(entry);
+        assertSame(link, entry.getLink());
+        assertEquals("https://example.com/1", entry.getOriginalUrl());
+        cache.invalidate("c1");
+        assertNull(cache.get("c1"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void frequentLinksSurviveScanOfRareLinks() {
+        HotLinkCache cache = new HotLinkCache(MAX_WEIGHT);
+        for (int i = 0; i < 50; i++) {
+            for (int k = 0; k < 5; k++) {
+                cache.get("c" + i);
+            }
+            cache.put("c" + i, link(i), link(i).getOriginalUrl());
+        }
+
+        // Каждый редкий код запрашивается дважды, поэтому проходит doorkeeper и соревнуется за место
+        for (int i = 1_000; i < 3_000; i++) {
+            cache.get("c" + i);
+            cache.get("c" + i);
+            cache.put("c" + i, link(i), link(i).getOriginalUrl());
+            if (i % 100 == 0) {
+                for (int hot = 0; hot < 50; hot++) {
+                    cache.get("c" + hot);
+                }
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(cache.get("c" + i), "горячая ссылка c" + i + " вытеснена");
+        }
+        assertTrue(cache.getWeight() <= MAX_WEIGHT);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    void concurrentAccessKeepsCacheConsistent() throws Exception {
+        HotLinkCache cache = new HotLinkCache(MAX_WEIGHT);
+        List<ShortLink> links = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            links.add(link(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 50_000; i++) {
+                        // Частые обращения к первым ссылкам, редкие - к остальным
+                        int index = random.nextInt(4) == 0 ? random.nextInt(500) : random.nextInt(20);
+                        String code = "c" + index;
+                        HotLinkCache.Entry entry = cache.get(code);
+                        if (entry != null) {
+                            assertSame(links.get(index), entry.getLink());
+                        } else if (random.nextInt(50) == 0) {
+                            cache.invalidate(code);
+                        } else {
+                            cache.put(code, links.get(index), links.get(index).getOriginalUrl());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.getWeight() <= MAX_WEIGHT);
+        assertTrue(cache.size() > 0);
+        assertEquals(8 * 50_000, cache.getHits() + cache.getMisses());
+        for (int i = 0; i < 20; i++) {
+            cache.invalidate("c" + i);
+            assertNull(cache.get("c" + i));
+        }
+    }
+
+    private static ShortLink link(int i) {
+        return new ShortLink("c" + i, "https://example.com/" + i, "alice", null, LocalDateTime.now().plusHours(1));
+    }
+}
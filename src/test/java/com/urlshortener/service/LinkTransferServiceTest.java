@@ -0,0 +1,61 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Импорт NDJSON: проверка URL как при создании и пропуск испорченных строк
+ */
+class LinkTransferServiceTest {
+    @TempDir
+    Path dir;
+
+    private UrlShortenerService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TestConfig.use(dir, Map.of());
+        service = new UrlShortenerService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        TestConfig.reset();
+    }
+
+    @Test
+    void importRejectsBadUrlsAndMalformedLines() throws Exception {
+        Path file = dir.resolve("links.ndjson");
+        Files.write(file, List.of(
+                "{\"shortCode\":\"good01\",\"originalUrl\":\"https://example.com/a\",\"userNickname\":\"alice\"}",
+                "{\"shortCode\":\"file01\",\"originalUrl\":\"file:///etc/passwd\",\"userNickname\":\"alice\"}",
+                "{\"shortCode\":\"ftp001\",\"originalUrl\":\"ftp://example.com/x\",\"userNickname\":\"alice\"}",
+                "{\"shortCode\":\"broken\",\"originalUrl\":",
+                "[1, 2, 3]",
+                "",
+                "{\"shortCode\":\"good02\",\"originalUrl\":\"example.com/b\",\"userNickname\":\"bob\"}"));
+
+        LinkTransferService.Result result = new LinkTransferService(service).importFrom(file);
+
+        assertEquals(6, result.getProcessed());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertEquals("https://example.com/a", service.getLinkInfo("good01").getOriginalUrl());
+        // URL без схемы дополняется так же, как при создании ссылки
+        assertEquals("https://example.com/b", service.getLinkInfo("good02").getOriginalUrl());
+        assertNull(service.getLinkInfo("file01"));
+        assertNull(service.getLinkInfo("ftp001"));
+    }
+}
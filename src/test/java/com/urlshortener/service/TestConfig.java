@@ -0,0 +1,52 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Конфигурация для тестов: config.yaml проекта с хранилищем во временной директории
+ * Отдельные параметры переопределяются по пути "раздел.параметр"
+ */
+final class TestConfig {
+    private TestConfig() {
+    }
+
+    // Записывает конфигурацию в dir/config.yaml и делает ее текущей
+    @SuppressWarnings("unchecked")
+    static void use(Path dir, Map<String, Object> overrides) throws IOException {
+        Yaml yaml = new Yaml();
+        Map<String, Object> root;
+        try (InputStream in = Files.newInputStream(Paths.get("config.yaml"))) {
+            root = yaml.load(in);
+        }
+        ((Map<String, Object>) root.get("storage")).put("directory", dir.resolve("data").toString());
+        for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+            String[] path = entry.getKey().split("\\.", 2);
+            ((Map<String, Object>) root.get(path[0])).put(path[1], entry.getValue());
+        }
+
+        Path configPath = dir.resolve("config.yaml");
+        try (Writer writer = Files.newBufferedWriter(configPath)) {
+            yaml.dump(root, writer);
+        }
+        Config.setConfigPath(configPath.toString());
+    }
+
+    // Возвращает конфигурацию по умолчанию (config.yaml в корне проекта)
+    static void reset() {
+        Config.setConfigPath(null);
+    }
+
+    // Короткий код из короткой ссылки
+    static String codeOf(String shortUrl) {
+        return shortUrl.substring(Config.getInstance().getBaseUrl().length());
+    }
+}
@@ -0,0 +1,139 @@
+package com.urlshortener.service;
+
+import com.urlshortener.model.ShortLink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.urlshortener.service.TestConfig.codeOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Конкурентные создание, удаление и переходы под полосатыми блокировками:
+ * ни одна ссылка не теряется, глобальный индекс совпадает с картами пользователей
+ */
+class UrlShortenerServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 3_000;
+
+    @TempDir
+    Path dir;
+
+    private UrlShortenerService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        TestConfig.reset();
+    }
+
+    @Test
+    void createDeleteAndRedirectKeepIndexConsistent() throws Exception {
+        // Мало полос, чтобы разные пользователи и коды делили блокировки
+        TestConfig.use(dir, Map.of("urlShortener.lockStripes", 4));
+        service = new UrlShortenerService();
+
+        List<Map<String, ShortLink>> expectedByThread = runConcurrently();
+        service.whenPersisted().join();
+
+        Map<String, ShortLink> expected = new HashMap<>();
+        for (Map<String, ShortLink> links : expectedByThread) {
+            expected.putAll(links);
+        }
+        assertConsistent(expected);
+
+        // После перезапуска из хранилища восстанавливаются те же ссылки
+        service.shutdown();
+        service = new UrlShortenerService();
+        assertEquals(expected.keySet(), new HashSet<>(service.indexedCodes()));
+        for (ShortLink link : expected.values()) {
+            assertEquals(link.getOriginalUrl(), service.getLinkInfo(link.getShortCode()).getOriginalUrl());
+        }
+    }
+
+    // Каждый поток создает ссылки для своих и общих пользователей, удаляет часть своих
+    // и переходит по своим живым и удаленным ссылкам; возвращает живые ссылки каждого потока
+    private List<Map<String, ShortLink>> runConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Map<String, ShortLink>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return runOperations(thread);
+                }));
+            }
+            start.countDown();
+            List<Map<String, ShortLink>> results = new ArrayList<>();
+            for (Future<Map<String, ShortLink>> future : futures) {
+                results.add(future.get(120, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, ShortLink> runOperations(int thread) {
+        Random random = new Random(thread);
+        Map<String, ShortLink> live = new HashMap<>();
+        List<String> liveCodes = new ArrayList<>();
+        Map<String, String> deleted = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int op = random.nextInt(10);
+            if (op < 4 || liveCodes.isEmpty()) {
+                String nickname = random.nextBoolean() ? "shared" + random.nextInt(3) : "t" + thread + "-" + random.nextInt(5);
+                String url = "https://example.com/" + thread + "/" + i;
+                String code = codeOf(service.createShortLink(url, nickname, null));
+                ShortLink link = service.getLinkInfo(code);
+                assertNotNull(link, "созданная ссылка не найдена: " + code);
+                assertEquals(url, link.getOriginalUrl());
+                live.put(code, link);
+                liveCodes.add(code);
+            } else if (op < 6) {
+                String code = liveCodes.remove(random.nextInt(liveCodes.size()));
+                ShortLink link = live.remove(code);
+                assertTrue(service.deleteLink(code, link.getUserNickname()), "ссылка не удалена: " + code);
+                deleted.put(code, link.getOriginalUrl());
+            } else if (op < 9) {
+                String code = liveCodes.get(random.nextInt(liveCodes.size()));
+                assertEquals(live.get(code).getOriginalUrl(), service.getOriginalUrl(code));
+            } else if (!deleted.isEmpty()) {
+                String code = deleted.keySet().iterator().next();
+                // Код удаленной ссылки может достаться новой ссылке, но не вернуть удаленный URL
+                assertNotEquals(deleted.remove(code), service.getOriginalUrl(code));
+            }
+        }
+        return live;
+    }
+
+    private void assertConsistent(Map<String, ShortLink> expected) {
+        Set<String> indexed = new HashSet<>(service.indexedCodes());
+        assertEquals(service.indexedCodes().size(), indexed.size(), "код в индексе дважды");
+        assertEquals(expected.keySet(), indexed);
+
+        Set<String> inUserMaps = new HashSet<>();
+        for (ShortLink link : service.allLinks()) {
+            assertTrue(inUserMaps.add(link.getShortCode()), "код в картах пользователей дважды");
+            assertSame(link, service.getLinkInfo(link.getShortCode()));
+        }
+        assertEquals(indexed, inUserMaps);
+
+        Map<String, Integer> perUser = new HashMap<>();
+        for (ShortLink link : expected.values()) {
+            assertSame(link, service.getLinkInfo(link.getShortCode()));
+            perUser.merge(link.getUserNickname(), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : perUser.entrySet()) {
+            assertEquals(entry.getValue(), service.getUserLinks(entry.getKey()).size(), entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.urlshortener.service;
+
+import com.urlshortener.config.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.urlshortener.service.TestConfig.codeOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Несколько процессов с одной директорией хранилища: второй процесс - отдельная JVM (ChildProcess),
+ * поэтому межпроцессные блокировки файлов и счетчик изменений работают так же, как в бою
+ */
+@Timeout(120)
+class UrlShortenerServiceSharedStorageTest {
+    private static final long REFRESH_INTERVAL_MILLIS = 300;
+    // Запас на чтение и применение изменений после проверки хранилища
+    private static final long REFRESH_SLACK_MILLIS = 500;
+
+    @TempDir
+    Path dir;
+
+    private final List<UrlShortenerService> services = new ArrayList<>();
+    private ChildProcess child;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (child != null) {
+            child.close();
+        }
+        for (UrlShortenerService service : services) {
+            service.shutdown();
+        }
+        TestConfig.reset();
+    }
+
+    @Test
+    void binaryStoreGivesNewCodeWhenCodeIsTakenByOtherProcess() throws Exception {
+        conflictingCreateGetsNewCode(Map.of("storage.format", "binary"));
+    }
+
+    @Test
+    void snapshotWithoutLogGivesNewCodeWhenCodeIsTakenByOtherProcess() throws Exception {
+        conflictingCreateGetsNewCode(Map.of("storage.writeAheadLog", false));
+    }
+
+    // Этот процесс запущен до того, как другой создал ссылки, и берет идентификаторы из своего файла,
+    // поэтому его генератор выдает те же коды, что уже заняты в хранилище другим процессом
+    private void conflictingCreateGetsNewCode(Map<String, Object> storage) throws Exception {
+        Map<String, Object> overrides = new HashMap<>(storage);
+        overrides.put("urlShortener.codeGenerator", "sequence");
+        child = startChild(overrides);
+        overrides.put("storage.idAllocatorFile", "second-allocator.dat");
+        UrlShortenerService service = start("second", overrides);
+
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            taken.add(child.send("create https://example.com/first/" + i + " alice"));
+        }
+
+        String code = codeOf(service.createShortLink("https://example.com/second", "bob", null));
+        service.whenPersisted().join();
+
+        assertFalse(taken.contains(code), "код " + code + " уже занят другим процессом");
+        assertEquals(List.of(code), service.indexedCodes());
+        assertEquals("https://example.com/second", service.getOriginalUrl(code));
+
+        // В хранилище остались ссылки обоих процессов
+        child.close();
+        child = null;
+        stopAll();
+        UrlShortenerService restarted = start("restarted", storage);
+        for (int i = 0; i < taken.size(); i++) {
+            assertEquals("https://example.com/first/" + i, restarted.getLinkInfo(taken.get(i)).getOriginalUrl());
+        }
+        assertEquals("https://example.com/second", restarted.getLinkInfo(code).getOriginalUrl());
+        assertEquals(taken.size() + 1, restarted.indexedCodes().size());
+    }
+
+    @Test
+    void logChangesOfOtherProcessAppearWithinRefreshInterval() throws Exception {
+        changesOfOtherProcessAppearWithinRefreshInterval(Map.of());
+    }
+
+    @Test
+    void binaryChangesOfOtherProcessAppearWithinRefreshInterval() throws Exception {
+        changesOfOtherProcessAppearWithinRefreshInterval(Map.of("storage.format", "binary"));
+    }
+
+    // Другой процесс создает ссылку, переходит по ней и удаляет ее; этот процесс видит каждое изменение
+    private void changesOfOtherProcessAppearWithinRefreshInterval(Map<String, Object> storage) throws Exception {
+        Map<String, Object> overrides = new HashMap<>(storage);
+        overrides.put("refresh.enabled", true);
+        overrides.put("refresh.debounceMillis", 20);
+        overrides.put("refresh.maxIntervalMillis", REFRESH_INTERVAL_MILLIS);
+        overrides.put("clickBuffer.enabled", false);
+        overrides.put("compaction.enabled", false);
+        child = startChild(overrides);
+        UrlShortenerService reader = start("reader", overrides);
+
+        String code = child.send("create https://example.com/a alice");
+        awaitRefresh("создание", () -> reader.getLinkInfo(code) != null);
+        assertEquals("https://example.com/a", reader.getLinkInfo(code).getOriginalUrl());
+        assertEquals(1, reader.getUserLinks("alice").size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("https://example.com/a", child.send("click " + code));
+        }
+        awaitRefresh("клики", () -> reader.getLinkInfo(code).getClickCount() == 3);
+
+        assertEquals("true", child.send("delete " + code + " alice"));
+        awaitRefresh("удаление", () -> reader.getLinkInfo(code) == null);
+        assertNull(reader.getOriginalUrl(code));
+        assertTrue(reader.getUserLinks("alice").isEmpty());
+    }
+
+    // Ждет, пока изменение станет видно, не дольше интервала проверки хранилища с запасом
+    private static void awaitRefresh(String change, BooleanSupplier visible) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + (REFRESH_INTERVAL_MILLIS + REFRESH_SLACK_MILLIS) * 1_000_000;
+        while (!visible.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, change + ": изменение не появилось за "
+                    + (System.nanoTime() - start) / 1_000_000 + " мс");
+            Thread.sleep(10);
+        }
+    }
+
+    // Запускает экземпляр в этой JVM со своей конфигурацией в dir/name и общим хранилищем dir/data
+    private UrlShortenerService start(String name, Map<String, Object> overrides) throws IOException {
+        useConfig(name, overrides);
+        UrlShortenerService service = new UrlShortenerService();
+        services.add(service);
+        return service;
+    }
+
+    // Запускает экземпляр в отдельной JVM с конфигурацией в dir/child и общим хранилищем dir/data
+    private ChildProcess startChild(Map<String, Object> overrides) throws IOException {
+        Path configPath = useConfig("child", overrides);
+        TestConfig.reset();
+        return new ChildProcess(configPath);
+    }
+
+    private Path useConfig(String name, Map<String, Object> overrides) throws IOException {
+        Map<String, Object> config = new HashMap<>(overrides);
+        config.put("storage.directory", dir.resolve("data").toString());
+        Path configDir = Files.createDirectories(dir.resolve(name));
+        TestConfig.use(configDir, config);
+        return configDir.resolve("config.yaml");
+    }
+
+    private void stopAll() {
+        for (UrlShortenerService service : services) {
+            service.shutdown();
+        }
+        services.clear();
+    }
+
+    /**
+     * Сервис в дочерней JVM, управляемый командами через stdin
+     * Ответ на команду - строка с префиксом RESPONSE, остальной вывод сервиса пропускается
+     */
+    static final class ChildProcess implements AutoCloseable {
+        private static final String RESPONSE = "> ";
+
+        private final Process process;
+        private final PrintWriter commands;
+        private final BufferedReader responses;
+
+        ChildProcess(Path configPath) throws IOException {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ChildProcess.class.getName(), configPath.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            commands = new PrintWriter(process.getOutputStream(), true, StandardCharsets.UTF_8);
+            responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        // Выполняет команду и возвращает ответ; изменения к этому моменту записаны в хранилище
+        String send(String command) throws IOException {
+            commands.println(command);
+            String line;
+            while ((line = responses.readLine()) != null) {
+                if (line.startsWith(RESPONSE)) {
+                    return line.substring(RESPONSE.length());
+                }
+            }
+            fail("дочерний процесс завершился, код " + process.exitValue());
+            return null;
+        }
+
+        @Override
+        public void close() throws Exception {
+            commands.close();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+
+        // Команды: create <url> <nickname> -> код, click <code> -> URL, delete <code> <nickname> -> true/false
+        // Конец ввода останавливает сервис
+        public static void main(String[] args) throws IOException {
+            Config.setConfigPath(args[0]);
+            UrlShortenerService service = new UrlShortenerService();
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.split(" ");
+                String response;
+                switch (command[0]) {
+                    case "create":
+                        response = codeOf(service.createShortLink(command[1], command[2], null));
+                        break;
+                    case "click":
+                        response = service.getOriginalUrl(command[1]);
+                        break;
+                    case "delete":
+                        response = String.valueOf(service.deleteLink(command[1], command[2]));
+                        break;
+                    default:
+                        response = "неизвестная команда " + command[0];
+                }
+                service.whenPersisted().join();
+                System.out.println(RESPONSE + response);
+            }
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.urlshortener.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.urlshortener.service.TestConfig.codeOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Переход и удаление через глобальный индекс коротких кодов
+ */
+class UrlShortenerServiceTest {
+    @TempDir
+    Path dir;
+
+    private UrlShortenerService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TestConfig.use(dir, Map.of());
+        service = new UrlShortenerService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        TestConfig.reset();
+    }
+
+    @Test
+    void getOriginalUrlFindsLinkByCode() {
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+        String other = codeOf(service.createShortLink("https://example.com/b", "bob", null));
+
+        assertEquals("https://example.com/a", service.getOriginalUrl(code));
+        assertEquals("https://example.com/a", service.getOriginalUrl(code));
+        assertEquals("https://example.com/b", service.getOriginalUrl(other));
+        assertEquals(2, service.getLinkInfo(code).getClickCount());
+        assertEquals(1, service.getLinkInfo(other).getClickCount());
+    }
+
+    @Test
+    void getOriginalUrlReturnsNullForUnknownCode() {
+        service.createShortLink("https://example.com/a", "alice", null);
+
+        assertNull(service.getOriginalUrl("zzzzzz"));
+        assertNull(service.getOriginalUrl(null));
+        assertNull(service.getLinkInfo("zzzzzz"));
+    }
+
+    @Test
+    void deleteLinkChecksOwner() {
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+
+        assertFalse(service.deleteLink(code, "bob"));
+        service.createShortLink("https://example.com/b", "bob", null);
+        assertFalse(service.deleteLink(code, "bob"));
+        assertEquals("https://example.com/a", service.getOriginalUrl(code));
+    }
+
+    @Test
+    void deletedLinkIsNotFound() {
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+        String kept = codeOf(service.createShortLink("https://example.com/b", "alice", null));
+        // Ссылка попадает в кэш горячих ссылок до удаления
+        assertEquals("https://example.com/a", service.getOriginalUrl(code));
+
+        assertTrue(service.deleteLink(code, "alice"));
+
+        assertNull(service.getOriginalUrl(code));
+        assertNull(service.getLinkInfo(code));
+        assertFalse(service.deleteLink(code, "alice"));
+        assertEquals("https://example.com/b", service.getOriginalUrl(kept));
+        assertEquals(1, service.getUserLinks("alice").size());
+    }
+
+    @Test
+    void linkCanBeCreatedAgainAfterDelete() {
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+        assertTrue(service.deleteLink(code, "alice"));
+
+        String recreated = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+
+        assertEquals("https://example.com/a", service.getOriginalUrl(recreated));
+        assertEquals(1, service.getLinkInfo(recreated).getClickCount());
+        if (!recreated.equals(code)) {
+            assertNull(service.getOriginalUrl(code));
+        }
+    }
+
+    @Test
+    void indexIsRestoredAfterRestart() {
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+        String deleted = codeOf(service.createShortLink("https://example.com/b", "alice", null));
+        service.getOriginalUrl(code);
+        assertTrue(service.deleteLink(deleted, "alice"));
+        service.shutdown();
+
+        service = new UrlShortenerService();
+
+        assertEquals("https://example.com/a", service.getOriginalUrl(code));
+        assertEquals(2, service.getLinkInfo(code).getClickCount());
+        assertNull(service.getOriginalUrl(deleted));
+        assertFalse(service.deleteLink(deleted, "alice"));
+        assertTrue(service.deleteLink(code, "alice"));
+    }
+
+    @Test
+    void expiredLinkIsDeactivatedOnce() throws Exception {
+        service.shutdown();
+        TestConfig.use(dir, Map.of("urlShortener.defaultTtlHours", 0));
+        service = new UrlShortenerService();
+        String code = codeOf(service.createShortLink("https://example.com/a", "alice", null));
+        service.whenPersisted().join();
+        long createdLogSize = service.getStorageLogSize();
+        Thread.sleep(5);
+
+        assertNull(service.getOriginalUrl(code));
+        service.whenPersisted().join();
+        long deactivatedLogSize = service.getStorageLogSize();
+        for (int i = 0; i < 100; i++) {
+            assertNull(service.getOriginalUrl(code));
+        }
+        service.whenPersisted().join();
+
+        assertTrue(deactivatedLogSize > createdLogSize);
+        assertEquals(deactivatedLogSize, service.getStorageLogSize());
+        assertFalse(service.getLinkInfo(code).isActive());
+    }
+
+    // Поиск по коду не должен зависеть от числа ссылок и пользователей: время поиска одних и тех же
+    // кодов при 1 000 и 100 000 ссылок (10 и 1 000 пользователей) различается меньше чем в 10 раз
+    // (запас на промахи кэша процессора в большом индексе), тогда как перебор пользователей дал бы рост в 100 раз
+    @Test
+    void lookupTimeDoesNotGrowWithLinkCount() throws Exception {
+        service.shutdown();
+        // Без кэша горячих ссылок поиск каждый раз идет через индекс кодов
+        TestConfig.use(dir, Map.of("hotCache.enabled", false));
+        service = new UrlShortenerService();
+
+        List<String> codes = createLinks(0, 1_000);
+        double small = nanosPerLookup(codes);
+        createLinks(1_000, 100_000);
+        service.whenPersisted().join();
+        double large = nanosPerLookup(codes);
+
+        assertTrue(large < small * 10, String.format("поиск при 1 000 ссылок: %.0f нс, при 100 000: %.0f нс",
+                small, large));
+    }
+
+    private List<String> createLinks(int from, int to) {
+        List<String> codes = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            // По 100 ссылок на пользователя
+            codes.add(codeOf(service.createShortLink("https://example.com/" + i, "user" + i / 100, null)));
+        }
+        return codes;
+    }
+
+    // Лучшее из нескольких измерений, чтобы не учитывать JIT-компиляцию и сборку мусора
+    private double nanosPerLookup(List<String> codes) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 100_000; i++) {
+                assertNotNull(service.getLinkInfo(codes.get(i % codes.size())));
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 100_000.0;
+    }
+}